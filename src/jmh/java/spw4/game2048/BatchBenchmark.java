@@ -0,0 +1,82 @@
+package spw4.game2048;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Random play in a {@link BatchEngine}, reported per lane move. Finished lanes
+ * are restarted after every step so the batch stays full.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BatchBenchmark {
+    private static final int LANES = 4096;
+
+    @Param({"batch", "game"})
+    private String engine;
+
+    private BatchEngine batch;
+    private Game[] games;
+    private byte[] directions;
+    private final Direction[] values = Direction.values();
+
+    @Setup
+    public void setup() {
+        batch = new BatchEngine(LANES, 42);
+        games = new Game[LANES];
+        for (int lane = 0; lane < LANES; lane++) {
+            games[lane] = new Game(4, RandomSource.create(batch.getSeed(lane)));
+            games[lane].initialize();
+        }
+        directions = new byte[LANES];
+        SplittableRandom random = new SplittableRandom(42);
+        for (int lane = 0; lane < LANES; lane++) {
+            directions[lane] = (byte) random.nextInt(4);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LANES)
+    public int step() {
+        int moved = 0;
+        if ("batch".equals(engine)) {
+            moved = batch.move(directions);
+            for (int lane = 0; lane < LANES; lane++) {
+                directions[lane] = (byte) ((directions[lane] + 1 + moved) & 3);
+                if (batch.isOver(lane)) {
+                    batch.restart(lane);
+                }
+            }
+        }
+        else {
+            for (int lane = 0; lane < LANES; lane++) {
+                if (games[lane].move(values[directions[lane]]).isMoved()) {
+                    moved++;
+                }
+                directions[lane] = (byte) ((directions[lane] + 1 + moved) & 3);
+                if (games[lane].isOver()) {
+                    games[lane] = new Game(4, RandomSource.create(lane));
+                    games[lane].initialize();
+                }
+            }
+        }
+        return moved;
+    }
+}
@@ -0,0 +1,64 @@
+package spw4.game2048;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * Fixed boards for the benchmarks, taken from corner strategy games with a
+ * constant seed: early boards after a few moves, mid boards once a 128 or 256
+ * tile is on the board, late boards within the last moves before game over.
+ */
+final class BoardCorpus {
+    static final int BOARDS = 64;
+
+    private static final long SEED = 2048;
+    private static final int LATE_MOVES = 8;
+
+    private BoardCorpus() {
+    }
+
+    static int[][][] boards(String phase) {
+        List<int[][]> boards = new ArrayList<>();
+        SplittableRandom random = new SplittableRandom(SEED);
+        Strategy strategy = new CornerStrategy();
+        while (boards.size() < BOARDS) {
+            Game game = new Game(new Random(random.nextLong()));
+            game.initialize();
+            List<int[][]> history = new ArrayList<>();
+            while (!game.isOver() && game.move(strategy.chooseMove(game, random)).isMoved()) {
+                history.add(game.getGameBoard());
+            }
+            boards.add(pick(phase, history, random));
+        }
+        return boards.toArray(new int[0][][]);
+    }
+
+    private static int[][] pick(String phase, List<int[][]> history, SplittableRandom random) {
+        switch (phase) {
+            case "early":
+                return history.get(5 + random.nextInt(Math.min(15, history.size() - 5)));
+            case "mid":
+                for (int[][] board : history) {
+                    if (maxTile(board) >= 128 + 128 * random.nextInt(2)) {
+                        return board;
+                    }
+                }
+                return history.get(history.size() / 2);
+            case "late":
+                return history.get(history.size() - 1 - random.nextInt(Math.min(LATE_MOVES, history.size())));
+        }
+        throw new IllegalArgumentException("Error: " + phase + " is not a valid phase!");
+    }
+
+    private static int maxTile(int[][] board) {
+        int max = 0;
+        for (int[] row : board) {
+            for (int value : row) {
+                max = Math.max(max, value);
+            }
+        }
+        return max;
+    }
+}
@@ -0,0 +1,100 @@
+package spw4.game2048;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot paths of {@link Game} over the {@link BoardCorpus}. Every mutating
+ * benchmark first restores the next corpus board; {@link #restore()} measures
+ * that cost alone so it can be subtracted.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameBenchmark {
+    @Param({"early", "mid", "late"})
+    private String phase;
+
+    @Param({"bit", "array"})
+    private String engine;
+
+    private int[][][] boards;
+    private Game game;
+    private int next;
+
+    @Setup
+    public void setup() {
+        boards = BoardCorpus.boards(phase);
+        Board board = "bit".equals(engine) ? new BitBoard() : new ArrayBoard(4);
+        game = new Game(board, new Random(42));
+        nextBoard();
+    }
+
+    private Game nextBoard() {
+        game.reset();
+        game.setGameBoard(boards[next++ & (BoardCorpus.BOARDS - 1)]);
+        return game;
+    }
+
+    @Benchmark
+    public Game restore() {
+        return nextBoard();
+    }
+
+    @Benchmark
+    public MoveResult moveUp() {
+        return nextBoard().move(Direction.up);
+    }
+
+    @Benchmark
+    public MoveResult moveDown() {
+        return nextBoard().move(Direction.down);
+    }
+
+    @Benchmark
+    public MoveResult moveLeft() {
+        return nextBoard().move(Direction.left);
+    }
+
+    @Benchmark
+    public MoveResult moveRight() {
+        return nextBoard().move(Direction.right);
+    }
+
+    @Benchmark
+    public Game spawnNewNumber() {
+        nextBoard().spawnNewNumber();
+        return game;
+    }
+
+    @Benchmark
+    public int findRandomEmptyCell() {
+        Game current = nextBoard();
+        return current.getBoard().countEmpty() == 0 ? -1 : current.findRandomEmptyCell();
+    }
+
+    @Benchmark
+    public boolean findIfPossibleMovesExists() {
+        return nextBoard().findIfPossibleMovesExists();
+    }
+
+    @Benchmark
+    public String toStringBoard() {
+        return nextBoard().toString();
+    }
+}
@@ -0,0 +1,283 @@
+package spw4.game2048;
+
+public class ArrayBoard implements Board {
+    private static final int MAX_EXPONENT = 30;
+
+    private final int size;
+    private final int gameBoard[][];
+
+    public ArrayBoard(int size) {
+        this.size = size;
+        gameBoard = new int[size][size];
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public int getValueAt(int row, int col) {
+        return gameBoard[row][col];
+    }
+
+    @Override
+    public void setValueAt(int row, int col, int value) {
+        gameBoard[row][col] = value;
+    }
+
+    @Override
+    public void clear() {
+        for(int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                gameBoard[row][col] = 0;
+            }
+        }
+    }
+
+    @Override
+    public boolean move(Direction direction, MoveResult result) {
+        result.reset(size);
+        for(int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                if(gameBoard[row][col] != 0) {
+                    result.setDestination(row * size + col, row * size + col);
+                }
+            }
+        }
+        boolean moved = false;
+        int treatedFields = 0;
+        switch(direction) {
+            case up:
+                for (int col = 0; col < size; col++) {
+                    treatedFields = 0;
+                    for(int row = 1; row < size; row++) {
+                        if (gameBoard[row][col] != 0) {
+                            int curNumber = gameBoard[row][col];
+                            gameBoard[row][col] = 0;
+                            for(int i = row - 1; i >= treatedFields; i--) {
+                                if (i == treatedFields && gameBoard[i][col] == 0) {
+                                    gameBoard[i][col] += curNumber;
+                                    moved |= track(result, row, col, i, col);
+                                    break;
+                                }
+                                if(gameBoard[i][col] != 0) {
+                                    if (gameBoard[i][col] == curNumber) {
+                                        gameBoard[i][col] += curNumber;
+                                        moved |= track(result, row, col, i, col);
+                                        result.addMerge(gameBoard[i][col]);
+                                        treatedFields++;
+                                    }
+                                    else {
+                                        gameBoard[i + 1][col] += curNumber;
+                                        moved |= track(result, row, col, i + 1, col);
+                                    }
+                                    break;
+                                }
+                            }
+                        }
+                    }
+                }
+                break;
+            case down:
+                for (int col = size - 1; col >= 0; col--) {
+                    treatedFields = 0;
+                    for(int row = size - 2; row >= 0; row--) {
+                        if (gameBoard[row][col] != 0) {
+                            int curNumber = gameBoard[row][col];
+                            gameBoard[row][col] = 0;
+                            for(int i = row + 1; i < size - treatedFields; i++) {
+                                if (i == size - 1 - treatedFields && gameBoard[i][col] == 0) {
+                                    gameBoard[i][col] += curNumber;
+                                    moved |= track(result, row, col, i, col);
+                                    break;
+                                }
+                                if(gameBoard[i][col] != 0) {
+                                    if (gameBoard[i][col] == curNumber) {
+                                        gameBoard[i][col] += curNumber;
+                                        moved |= track(result, row, col, i, col);
+                                        result.addMerge(gameBoard[i][col]);
+                                        treatedFields++;
+                                    }
+                                    else {
+                                        gameBoard[i - 1][col] += curNumber;
+                                        moved |= track(result, row, col, i - 1, col);
+                                    }
+                                    break;
+                                }
+                            }
+                        }
+                    }
+                }
+                break;
+            case left:
+                for(int row = 0; row < size; row++) {
+                    treatedFields = 0;
+                    for (int col = 1; col < size; col++) {
+                        if (gameBoard[row][col] != 0) {
+                            int curNumber = gameBoard[row][col];
+                            gameBoard[row][col] = 0;
+                            for(int i = col - 1; i >= treatedFields; i--) {
+                                if (i == treatedFields && gameBoard[row][i] == 0) {
+                                    gameBoard[row][i] += curNumber;
+                                    moved |= track(result, row, col, row, i);
+                                    break;
+                                }
+                                if(gameBoard[row][i] != 0) {
+                                    if (gameBoard[row][i] == curNumber) {
+                                        gameBoard[row][i] += curNumber;
+                                        moved |= track(result, row, col, row, i);
+                                        result.addMerge(gameBoard[row][i]);
+                                        treatedFields++;
+                                    }
+                                    else {
+                                        gameBoard[row][i + 1] += curNumber;
+                                        moved |= track(result, row, col, row, i + 1);
+                                    }
+                                    break;
+                                }
+                            }
+                        }
+                    }
+                }
+                break;
+            case right:
+                for(int row = size - 1; row >= 0; row--) {
+                    treatedFields = 0;
+                    for (int col = size - 2; col >= 0; col--) {
+                        if (gameBoard[row][col] != 0) {
+                            int curNumber = gameBoard[row][col];
+                            gameBoard[row][col] = 0;
+                            for(int i = col + 1; i < size - treatedFields; i++) {
+                                if (i == size - 1 - treatedFields && gameBoard[row][i] == 0) {
+                                    gameBoard[row][i] += curNumber;
+                                    moved |= track(result, row, col, row, i);
+                                    break;
+                                }
+                                if(gameBoard[row][i] != 0) {
+                                    if (gameBoard[row][i] == curNumber) {
+                                        gameBoard[row][i] += curNumber;
+                                        moved |= track(result, row, col, row, i);
+                                        result.addMerge(gameBoard[row][i]);
+                                        treatedFields++;
+                                    }
+                                    else {
+                                        gameBoard[row][i - 1] += curNumber;
+                                        moved |= track(result, row, col, row, i - 1);
+                                    }
+                                    break;
+                                }
+                            }
+                        }
+                    }
+                }
+                break;
+        }
+        result.setMoved(moved);
+        return moved;
+    }
+
+    @Override
+    public int countEmpty() {
+        int count = 0;
+        for(int row = 0; row < size; row++) {
+            for(int col = 0; col < size; col++) {
+                if(gameBoard[row][col] == 0) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int getEmptyCell(int index) {
+        for(int row = 0; row < size; row++) {
+            for(int col = 0; col < size; col++) {
+                if(gameBoard[row][col] == 0 && index-- == 0) {
+                    return row * size + col;
+                }
+            }
+        }
+        throw new InvalidEmptyPosition("Error: Empty Position is not empty!");
+    }
+
+    @Override
+    public boolean hasEqualNeighbours() {
+        for(int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                if(row + 1 < size && gameBoard[row][col] == gameBoard[row + 1][col]) {
+                    return true;
+                }
+                if(col + 1 < size && gameBoard[row][col] == gameBoard[row][col + 1]) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int legalMoves() {
+        int moves = 0;
+        for(int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                int value = gameBoard[row][col];
+                if(value == 0) {
+                    continue;
+                }
+                if(row > 0 && (gameBoard[row - 1][col] == 0 || gameBoard[row - 1][col] == value)) {
+                    moves |= Direction.up.mask();
+                }
+                if(row + 1 < size && (gameBoard[row + 1][col] == 0 || gameBoard[row + 1][col] == value)) {
+                    moves |= Direction.down.mask();
+                }
+                if(col > 0 && (gameBoard[row][col - 1] == 0 || gameBoard[row][col - 1] == value)) {
+                    moves |= Direction.left.mask();
+                }
+                if(col + 1 < size && (gameBoard[row][col + 1] == 0 || gameBoard[row][col + 1] == value)) {
+                    moves |= Direction.right.mask();
+                }
+            }
+        }
+        return moves;
+    }
+
+    @Override
+    public Board copy() {
+        ArrayBoard copy = new ArrayBoard(size);
+        for(int row = 0; row < size; row++) {
+            System.arraycopy(gameBoard[row], 0, copy.gameBoard[row], 0, size);
+        }
+        return copy;
+    }
+
+    @Override
+    public int packedLength() {
+        return (size * size + 7) / 8;
+    }
+
+    @Override
+    public void pack(long[] dst, int offset) {
+        for(int i = 0; i < packedLength(); i++) {
+            dst[offset + i] = 0;
+        }
+        for(int cell = 0; cell < size * size; cell++) {
+            long exponent = LineSlider.toExponent(gameBoard[cell / size][cell % size], MAX_EXPONENT);
+            dst[offset + cell / 8] |= exponent << (8 * (cell % 8));
+        }
+    }
+
+    @Override
+    public void unpack(long[] src, int offset) {
+        for(int cell = 0; cell < size * size; cell++) {
+            int exponent = (int) (src[offset + cell / 8] >>> (8 * (cell % 8))) & 0xFF;
+            gameBoard[cell / size][cell % size] = exponent == 0 ? 0 : 1 << exponent;
+        }
+    }
+
+    private boolean track(MoveResult result, int srcRow, int srcCol, int dstRow, int dstCol) {
+        result.setDestination(srcRow * size + srcCol, dstRow * size + dstCol);
+        return srcRow != dstRow || srcCol != dstCol;
+    }
+}
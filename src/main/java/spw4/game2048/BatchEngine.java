@@ -0,0 +1,204 @@
+package spw4.game2048;
+
+/**
+ * Thousands of independent 4x4 games advanced together. The games live in a
+ * struct-of-arrays buffer of primitive lanes (packed cells, score, status,
+ * random state) and every call runs the lanes through three flat passes:
+ * slide, merge and score accumulation from the {@link BitBoard} row tables,
+ * then spawning into the empty cells, then the legal-move update. Every lane
+ * draws from its own SplitMix stream exactly like a {@link Game} created with
+ * {@code RandomSource.create(getSeed(lane))}, so a lane can be replayed as a
+ * single game. Like {@link Game} a lane is over once a merge makes 2048.
+ */
+public final class BatchEngine {
+    private static final byte OVER = 1;
+    private static final byte WON = 2;
+
+    private final int lanes;
+    private final RandomSource seeds;
+    private final long[] cells;
+    private final long[] states;
+    private final long[] laneSeeds;
+    private final int[] scores;
+    private final int[] moves;
+    private final byte[] legal;
+    private final byte[] status;
+    private final boolean[] changed;
+
+    public BatchEngine(int lanes, long seed) {
+        if (lanes < 1) {
+            throw new IllegalArgumentException("Error: " + lanes + " is not a valid number of lanes!");
+        }
+        this.lanes = lanes;
+        seeds = RandomSource.create(seed);
+        cells = new long[lanes];
+        states = new long[lanes];
+        laneSeeds = new long[lanes];
+        scores = new int[lanes];
+        moves = new int[lanes];
+        legal = new byte[lanes];
+        status = new byte[lanes];
+        changed = new boolean[lanes];
+        reset();
+    }
+
+    public int lanes() {
+        return lanes;
+    }
+
+    /** Starts a new game in every lane. */
+    public void reset() {
+        for (int lane = 0; lane < lanes; lane++) {
+            restart(lane);
+        }
+    }
+
+    /** Starts a new game in the lane with the next seed of the engine. */
+    public void restart(int lane) {
+        laneSeeds[lane] = seeds.nextLong();
+        states[lane] = laneSeeds[lane];
+        cells[lane] = 0;
+        scores[lane] = 0;
+        moves[lane] = 0;
+        status[lane] = 0;
+        spawn(lane);
+        spawn(lane);
+        updateLegal(lane);
+    }
+
+    /** Moves every lane in the same direction, returns the number of lanes that changed. */
+    public int move(Direction direction) {
+        byte ordinal = (byte) direction.ordinal();
+        for (int lane = 0; lane < lanes; lane++) {
+            changed[lane] = status[lane] == 0 && (legal[lane] & direction.mask()) != 0;
+        }
+        return advance(null, ordinal);
+    }
+
+    /**
+     * Moves lane {@code i} in {@code Direction.values()[directions[i]]}. Lanes
+     * that are over or whose move would not change the board stay as they are.
+     * Returns the number of lanes that changed.
+     */
+    public int move(byte[] directions) {
+        if (directions.length < lanes) {
+            throw new IllegalArgumentException("Error: " + directions.length + " is not a valid number of directions!");
+        }
+        for (int lane = 0; lane < lanes; lane++) {
+            changed[lane] = status[lane] == 0 && (legal[lane] & 1 << directions[lane]) != 0;
+        }
+        return advance(directions, (byte) 0);
+    }
+
+    private int advance(byte[] directions, byte direction) {
+        for (int lane = 0; lane < lanes; lane++) {
+            if (changed[lane]) {
+                slide(lane, directions == null ? direction : directions[lane]);
+            }
+        }
+        int count = 0;
+        for (int lane = 0; lane < lanes; lane++) {
+            if (changed[lane]) {
+                spawn(lane);
+                count++;
+            }
+        }
+        for (int lane = 0; lane < lanes; lane++) {
+            if (changed[lane]) {
+                updateLegal(lane);
+            }
+        }
+        return count;
+    }
+
+    private void slide(int lane, int direction) {
+        boolean vertical = direction == Direction.up.ordinal() || direction == Direction.down.ordinal();
+        boolean towardsStart = direction == Direction.up.ordinal() || direction == Direction.left.ordinal();
+        char[] rows = towardsStart ? BitBoard.ROW_LEFT : BitBoard.ROW_RIGHT;
+        int[] metas = towardsStart ? BitBoard.META_LEFT : BitBoard.META_RIGHT;
+        long board = vertical ? BitBoard.transpose(cells[lane]) : cells[lane];
+        int r0 = (int) board & 0xFFFF;
+        int r1 = (int) (board >>> 16) & 0xFFFF;
+        int r2 = (int) (board >>> 32) & 0xFFFF;
+        int r3 = (int) (board >>> 48) & 0xFFFF;
+        long moved = rows[r0] | (long) rows[r1] << 16 | (long) rows[r2] << 32 | (long) rows[r3] << 48;
+        int m0 = metas[r0];
+        int m1 = metas[r1];
+        int m2 = metas[r2];
+        int m3 = metas[r3];
+        cells[lane] = vertical ? BitBoard.transpose(moved) : moved;
+        scores[lane] += RowTables.score(m0) + RowTables.score(m1) + RowTables.score(m2) + RowTables.score(m3);
+        moves[lane]++;
+        if (RowTables.won(m0 | m1 | m2 | m3)) {
+            status[lane] = OVER | WON;
+        }
+    }
+
+    private void spawn(int lane) {
+        long empty = BitBoard.emptyCells(cells[lane]);
+        for (int i = nextInt(lane, Long.bitCount(empty)); i > 0; i--) {
+            empty &= empty - 1;
+        }
+        long tile = Long.lowestOneBit(empty);
+        cells[lane] |= nextInt(lane, 10) == 0 ? tile << 1 : tile;
+    }
+
+    private void updateLegal(int lane) {
+        legal[lane] = (byte) BitBoard.legalMoves(cells[lane]);
+        if (legal[lane] == 0) {
+            status[lane] |= OVER;
+        }
+    }
+
+    /** Same draws as {@link SplitMixRandom#nextInt(int)} on the state of the lane. */
+    private int nextInt(int lane, int bound) {
+        long product = (SplitMixRandom.mix(states[lane] += SplitMixRandom.GAMMA) >>> 32) * bound;
+        if ((product & 0xFFFFFFFFL) < bound) {
+            long threshold = (1L << 32) % bound;
+            while ((product & 0xFFFFFFFFL) < threshold) {
+                product = (SplitMixRandom.mix(states[lane] += SplitMixRandom.GAMMA) >>> 32) * bound;
+            }
+        }
+        return (int) (product >>> 32);
+    }
+
+    public long getCells(int lane) {
+        return cells[lane];
+    }
+
+    public int getScore(int lane) {
+        return scores[lane];
+    }
+
+    /** Moves that changed the board since the lane was started. */
+    public int getMoves(int lane) {
+        return moves[lane];
+    }
+
+    public int getLegalMoves(int lane) {
+        return legal[lane];
+    }
+
+    public long getSeed(int lane) {
+        return laneSeeds[lane];
+    }
+
+    public boolean isOver(int lane) {
+        return (status[lane] & OVER) != 0;
+    }
+
+    public boolean isWon(int lane) {
+        return (status[lane] & WON) != 0;
+    }
+
+    /** Number of lanes whose game is not over. */
+    public int running() {
+        int running = 0;
+        for (int lane = 0; lane < lanes; lane++) {
+            if (status[lane] == 0) {
+                running++;
+            }
+        }
+        return running;
+    }
+}
@@ -0,0 +1,234 @@
+package spw4.game2048;
+
+/**
+ * 4x4 board packed into a single {@code long}: every cell holds the 4-bit
+ * exponent of its tile, cell {@code (row, col)} sits at bit {@code 4 * (row * 4 + col)}.
+ * Left/right moves are looked up per row in precomputed tables, up/down moves
+ * run through a transpose. The {@link RowTables} are generated from the same
+ * row slide as {@link ArrayBoard}, so both engines produce identical boards and scores.
+ * Tiles are capped at 32768 (exponent 15), two of them never merge.
+ */
+public final class BitBoard implements Board {
+    static final int SIZE = 4;
+    static final int MAX_EXPONENT = RowTables.MAX_EXPONENT;
+
+    private static final long EMPTY_MASK = 0x1111111111111111L;
+    private static final long ROW_NEIGHBOURS = 0x0111011101110111L;
+    private static final long COL_NEIGHBOURS = 0x0000111111111111L;
+
+    private static final RowTables TABLES = new RowTables(SIZE);
+    static final char[] ROW_LEFT = TABLES.left;
+    static final char[] ROW_RIGHT = TABLES.right;
+    static final int[] META_LEFT = TABLES.metaLeft;
+    static final int[] META_RIGHT = TABLES.metaRight;
+    private static final byte[] LEGAL = TABLES.legal;
+
+    private long cells;
+
+    public BitBoard() {
+    }
+
+    public BitBoard(long cells) {
+        this.cells = cells;
+    }
+
+    public long getCells() {
+        return cells;
+    }
+
+    public void setCells(long cells) {
+        this.cells = cells;
+    }
+
+    @Override
+    public int getSize() {
+        return SIZE;
+    }
+
+    @Override
+    public int getValueAt(int row, int col) {
+        int exponent = (int) (cells >>> shift(row, col)) & 0xF;
+        return exponent == 0 ? 0 : 1 << exponent;
+    }
+
+    @Override
+    public void setValueAt(int row, int col, int value) {
+        int shift = shift(row, col);
+        cells = (cells & ~(0xFL << shift)) | ((long) LineSlider.toExponent(value, MAX_EXPONENT) << shift);
+    }
+
+    @Override
+    public void clear() {
+        cells = 0;
+    }
+
+    @Override
+    public boolean move(Direction direction, MoveResult result) {
+        result.reset(SIZE);
+        long before = cells;
+        switch (direction) {
+            case up:
+                cells = transpose(moveRows(transpose(cells), ROW_LEFT, META_LEFT, true, result));
+                break;
+            case down:
+                cells = transpose(moveRows(transpose(cells), ROW_RIGHT, META_RIGHT, true, result));
+                break;
+            case left:
+                cells = moveRows(cells, ROW_LEFT, META_LEFT, false, result);
+                break;
+            case right:
+                cells = moveRows(cells, ROW_RIGHT, META_RIGHT, false, result);
+                break;
+        }
+        result.setMoved(cells != before);
+        return result.isMoved();
+    }
+
+    @Override
+    public int countEmpty() {
+        return Long.bitCount(emptyCells(cells));
+    }
+
+    @Override
+    public int getEmptyCell(int index) {
+        long empty = emptyCells(cells);
+        for (int i = 0; i < index && empty != 0; i++) {
+            empty &= empty - 1;
+        }
+        if (empty == 0) {
+            throw new InvalidEmptyPosition("Error: Empty Position is not empty!");
+        }
+        return Long.numberOfTrailingZeros(empty) >>> 2;
+    }
+
+    @Override
+    public boolean hasEqualNeighbours() {
+        return (emptyCells(cells ^ (cells >>> 4)) & ROW_NEIGHBOURS) != 0
+                || (emptyCells(cells ^ (cells >>> 16)) & COL_NEIGHBOURS) != 0;
+    }
+
+    @Override
+    public int legalMoves() {
+        return legalMoves(cells);
+    }
+
+    @Override
+    public Board copy() {
+        return new BitBoard(cells);
+    }
+
+    @Override
+    public int packedLength() {
+        return 1;
+    }
+
+    @Override
+    public void pack(long[] dst, int offset) {
+        dst[offset] = cells;
+    }
+
+    @Override
+    public void unpack(long[] src, int offset) {
+        cells = src[offset];
+    }
+
+    /** Moves the packed board without reporting anything, for searches over copies. */
+    public static long move(long cells, Direction direction) {
+        switch (direction) {
+            case up:
+                return transpose(moveRows(transpose(cells), ROW_LEFT));
+            case down:
+                return transpose(moveRows(transpose(cells), ROW_RIGHT));
+            case left:
+                return moveRows(cells, ROW_LEFT);
+            case right:
+                return moveRows(cells, ROW_RIGHT);
+        }
+        return cells;
+    }
+
+    public static int countEmpty(long cells) {
+        return Long.bitCount(emptyCells(cells));
+    }
+
+    public static long pack(Board board) {
+        if (board instanceof BitBoard) {
+            return ((BitBoard) board).cells;
+        }
+        if (board.getSize() != SIZE) {
+            throw new IllegalArgumentException("Error: only " + SIZE + "x" + SIZE + " boards can be packed!");
+        }
+        long cells = 0;
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                cells |= (long) LineSlider.toExponent(board.getValueAt(row, col), MAX_EXPONENT) << shift(row, col);
+            }
+        }
+        return cells;
+    }
+
+    public static int legalMoves(long cells) {
+        long columns = transpose(cells);
+        int rowMoves = LEGAL[(int) cells & 0xFFFF]
+                | LEGAL[(int) (cells >>> 16) & 0xFFFF]
+                | LEGAL[(int) (cells >>> 32) & 0xFFFF]
+                | LEGAL[(int) (cells >>> 48) & 0xFFFF];
+        int columnMoves = LEGAL[(int) columns & 0xFFFF]
+                | LEGAL[(int) (columns >>> 16) & 0xFFFF]
+                | LEGAL[(int) (columns >>> 32) & 0xFFFF]
+                | LEGAL[(int) (columns >>> 48) & 0xFFFF];
+        return rowMoves | columnMoves >>> 2;
+    }
+
+    static long transpose(long x) {
+        long a1 = x & 0xF0F00F0FF0F00F0FL;
+        long a2 = x & 0x0000F0F00000F0F0L;
+        long a3 = x & 0x0F0F00000F0F0000L;
+        long a = a1 | (a2 << 12) | (a3 >>> 12);
+        long b1 = a & 0xFF00FF0000FF00FFL;
+        long b2 = a & 0x00FF00FF00000000L;
+        long b3 = a & 0x00000000FF00FF00L;
+        return b1 | (b2 >>> 24) | (b3 << 24);
+    }
+
+    /** Sets bit 0 of every nibble that is zero in {@code x}. */
+    static long emptyCells(long x) {
+        x |= x >>> 2;
+        x |= x >>> 1;
+        return ~x & EMPTY_MASK;
+    }
+
+    private static long moveRows(long board, char[] rows) {
+        return rows[(int) board & 0xFFFF]
+                | (long) rows[(int) (board >>> 16) & 0xFFFF] << 16
+                | (long) rows[(int) (board >>> 32) & 0xFFFF] << 32
+                | (long) rows[(int) (board >>> 48) & 0xFFFF] << 48;
+    }
+
+    private static long moveRows(long board, char[] rows, int[] metas, boolean columns, MoveResult result) {
+        long moved = 0;
+        for (int line = 0; line < SIZE; line++) {
+            int shift = 16 * line;
+            int row = (int) (board >>> shift) & 0xFFFF;
+            moved |= (long) rows[row] << shift;
+            int meta = metas[row];
+            result.add(RowTables.score(meta), RowTables.merges(meta), RowTables.won(meta));
+            for (int i = 0; i < SIZE; i++) {
+                if (((row >>> (4 * i)) & 0xF) != 0) {
+                    int destination = RowTables.destination(meta, i);
+                    if (columns) {
+                        result.setDestination(i * SIZE + line, destination * SIZE + line);
+                    }
+                    else {
+                        result.setDestination(line * SIZE + i, line * SIZE + destination);
+                    }
+                }
+            }
+        }
+        return moved;
+    }
+
+    private static int shift(int row, int col) {
+        return 4 * (row * SIZE + col);
+    }
+}
@@ -0,0 +1,49 @@
+package spw4.game2048;
+
+public interface Board {
+    static Board create(int size) {
+        if (size < 2) {
+            throw new IllegalArgumentException("Error: " + size + " is not a valid size!");
+        }
+        if (size == SmallBitBoard.SIZE) {
+            return new SmallBitBoard();
+        }
+        if (size == BitBoard.SIZE) {
+            return new BitBoard();
+        }
+        if (size >= WideBitBoard.MIN_SIZE && size <= WideBitBoard.MAX_SIZE) {
+            return new WideBitBoard(size);
+        }
+        return new ArrayBoard(size);
+    }
+
+    int getSize();
+
+    int getValueAt(int row, int col);
+
+    void setValueAt(int row, int col, int value);
+
+    void clear();
+
+    boolean move(Direction direction, MoveResult result);
+
+    int countEmpty();
+
+    int getEmptyCell(int index);
+
+    boolean hasEqualNeighbours();
+
+    /** Returns one bit per {@link Direction#mask()} for every move that would change the board. */
+    int legalMoves();
+
+    Board copy();
+
+    /** Number of {@code long}s {@link #pack(long[], int)} writes. */
+    int packedLength();
+
+    /** Writes the cells as tile exponents into {@code dst}, starting at {@code offset}. */
+    void pack(long[] dst, int offset);
+
+    /** Restores cells written by {@link #pack(long[], int)} on a board of the same size. */
+    void unpack(long[] src, int offset);
+}
@@ -0,0 +1,174 @@
+package spw4.game2048;
+
+/**
+ * Evaluates boards by the features of their rows and columns: monotonicity,
+ * smoothness, empty cells, merges and a combined score. For packed 4x4 boards
+ * every feature is precomputed for all 65536 rows, so scoring a board costs
+ * eight table lookups, four rows and four columns of the transpose. Boards of
+ * other sizes are evaluated line by line with the same formulas.
+ * <p>
+ * The combined score follows the weights of the well-known 2048 expectimax
+ * players: a constant per line, bonuses for empty cells and merges, penalties
+ * for tiles out of order and for large tiles. Smoothness is reported but not
+ * weighted. All features are invariant under {@link Symmetry}.
+ */
+public final class BoardEvaluator {
+    private static final double LINE_BASE = 200000.0;
+    private static final double EMPTY_WEIGHT = 270.0;
+    private static final double MERGES_WEIGHT = 700.0;
+    private static final double MONOTONICITY_WEIGHT = 47.0;
+    private static final double MONOTONICITY_POWER = 4.0;
+    private static final double SUM_WEIGHT = 11.0;
+    private static final double SUM_POWER = 3.5;
+
+    private static final int ROWS = 1 << 16;
+    private static final double[] SCORE = new double[ROWS];
+    private static final double[] MONOTONICITY = new double[ROWS];
+    private static final double[] SMOOTHNESS = new double[ROWS];
+    private static final byte[] EMPTY = new byte[ROWS];
+    private static final byte[] MERGES = new byte[ROWS];
+
+    static {
+        int[] line = new int[BitBoard.SIZE];
+        for (int row = 0; row < ROWS; row++) {
+            for (int i = 0; i < line.length; i++) {
+                line[i] = (row >>> (4 * i)) & 0xF;
+            }
+            SCORE[row] = score(line);
+            MONOTONICITY[row] = monotonicity(line);
+            SMOOTHNESS[row] = smoothness(line);
+            EMPTY[row] = (byte) empty(line);
+            MERGES[row] = (byte) merges(line);
+        }
+    }
+
+    private BoardEvaluator() {
+    }
+
+    /** Combined score of a packed 4x4 board. */
+    public static double score(long cells) {
+        long columns = BitBoard.transpose(cells);
+        return SCORE[(int) cells & 0xFFFF]
+                + SCORE[(int) (cells >>> 16) & 0xFFFF]
+                + SCORE[(int) (cells >>> 32) & 0xFFFF]
+                + SCORE[(int) (cells >>> 48) & 0xFFFF]
+                + SCORE[(int) columns & 0xFFFF]
+                + SCORE[(int) (columns >>> 16) & 0xFFFF]
+                + SCORE[(int) (columns >>> 32) & 0xFFFF]
+                + SCORE[(int) (columns >>> 48) & 0xFFFF];
+    }
+
+    public static Evaluation evaluate(long cells) {
+        long columns = BitBoard.transpose(cells);
+        double monotonicity = 0;
+        double smoothness = 0;
+        int empty = 0;
+        int merges = 0;
+        for (int shift = 0; shift < 64; shift += 16) {
+            int row = (int) (cells >>> shift) & 0xFFFF;
+            int column = (int) (columns >>> shift) & 0xFFFF;
+            monotonicity += MONOTONICITY[row] + MONOTONICITY[column];
+            smoothness += SMOOTHNESS[row] + SMOOTHNESS[column];
+            empty += EMPTY[row];
+            merges += MERGES[row] + MERGES[column];
+        }
+        return new Evaluation(monotonicity, smoothness, empty, merges, score(cells), BitBoard.SIZE * BitBoard.SIZE);
+    }
+
+    public static Evaluation evaluate(Game game) {
+        return evaluate(game.getBoard());
+    }
+
+    public static Evaluation evaluate(Board board) {
+        if (board instanceof BitBoard) {
+            return evaluate(((BitBoard) board).getCells());
+        }
+        int size = board.getSize();
+        int[] row = new int[size];
+        int[] column = new int[size];
+        double monotonicity = 0;
+        double smoothness = 0;
+        double score = 0;
+        int empty = 0;
+        int merges = 0;
+        for (int line = 0; line < size; line++) {
+            for (int i = 0; i < size; i++) {
+                row[i] = LineSlider.toExponent(board.getValueAt(line, i), Integer.SIZE - 2);
+                column[i] = LineSlider.toExponent(board.getValueAt(i, line), Integer.SIZE - 2);
+            }
+            monotonicity += monotonicity(row) + monotonicity(column);
+            smoothness += smoothness(row) + smoothness(column);
+            score += score(row) + score(column);
+            empty += empty(row);
+            merges += merges(row) + merges(column);
+        }
+        return new Evaluation(monotonicity, smoothness, empty, merges, score, size * size);
+    }
+
+    static double score(int[] line) {
+        double sum = 0;
+        for (int exponent : line) {
+            sum += Math.pow(exponent, SUM_POWER);
+        }
+        return LINE_BASE + EMPTY_WEIGHT * empty(line) + MERGES_WEIGHT * merges(line)
+                + MONOTONICITY_WEIGHT * monotonicity(line) - SUM_WEIGHT * sum;
+    }
+
+    /** Minus the smaller of the increasing and decreasing penalties, each summing the jumps against that order. */
+    static double monotonicity(int[] line) {
+        double decreasing = 0;
+        double increasing = 0;
+        for (int i = 1; i < line.length; i++) {
+            double previous = Math.pow(line[i - 1], MONOTONICITY_POWER);
+            double current = Math.pow(line[i], MONOTONICITY_POWER);
+            if (previous > current) {
+                increasing += previous - current;
+            }
+            else {
+                decreasing += current - previous;
+            }
+        }
+        return -Math.min(increasing, decreasing);
+    }
+
+    static double smoothness(int[] line) {
+        double smoothness = 0;
+        int previous = 0;
+        for (int exponent : line) {
+            if (exponent != 0) {
+                if (previous != 0) {
+                    smoothness -= Math.abs(previous - exponent);
+                }
+                previous = exponent;
+            }
+        }
+        return smoothness;
+    }
+
+    static int empty(int[] line) {
+        int empty = 0;
+        for (int exponent : line) {
+            if (exponent == 0) {
+                empty++;
+            }
+        }
+        return empty;
+    }
+
+    static int merges(int[] line) {
+        int merges = 0;
+        int previous = 0;
+        for (int exponent : line) {
+            if (exponent != 0) {
+                if (exponent == previous) {
+                    merges++;
+                    previous = 0;
+                }
+                else {
+                    previous = exponent;
+                }
+            }
+        }
+        return merges;
+    }
+}
@@ -0,0 +1,153 @@
+package spw4.game2048;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed number of threads with a bounded queue, so one kind of work can
+ * never take the threads or the memory of another. A task that finds the
+ * queue full is rejected at once, a task still waiting when its timeout passes
+ * is rejected by a timer; either way it never runs. A running task is not
+ * interrupted, the work itself has to be bounded.
+ * <p>
+ * {@link #dispatch} runs servlet requests this way: the request goes
+ * asynchronous, so a waiting request holds a queue slot but no container
+ * thread, and a rejected one is answered with 503.
+ */
+public final class Bulkhead implements Closeable {
+    /** Context attributes of the bulkhead for requests that change or read games and of the one for searches. */
+    public static final String MOVES = Bulkhead.class.getName() + ".moves";
+    public static final String COMPUTE = Bulkhead.class.getName() + ".compute";
+
+    private final ThreadPoolExecutor executor;
+    private final ScheduledThreadPoolExecutor timer;
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    public Bulkhead(String name, int threads, int queueCapacity) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Error: " + threads + " is not a valid number of threads!");
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Error: " + queueCapacity + " is not a valid queue capacity!");
+        }
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory(name));
+        timer = new ScheduledThreadPoolExecutor(1, threadFactory(name + "-timer"));
+        timer.setRemoveOnCancelPolicy(true);
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Queues the task, or runs {@code rejected} instead if the queue is full
+     * (on the calling thread, and returns false) or if the task has not
+     * started within {@code timeoutMillis} (on the timer thread).
+     */
+    public boolean submit(Runnable task, long timeoutMillis, Runnable rejected) {
+        AtomicBoolean claimed = new AtomicBoolean();
+        ScheduledFuture<?> timeout = timer.schedule(() -> {
+            if (claimed.compareAndSet(false, true)) {
+                timeouts.increment();
+                rejected.run();
+            }
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+        try {
+            executor.execute(() -> {
+                if (claimed.compareAndSet(false, true)) {
+                    timeout.cancel(false);
+                    task.run();
+                }
+            });
+            return true;
+        }
+        catch (RejectedExecutionException e) {
+            timeout.cancel(false);
+            if (claimed.compareAndSet(false, true)) {
+                rejections.increment();
+                rejected.run();
+            }
+            return false;
+        }
+    }
+
+    /** Handles the request asynchronously on the bulkhead, answers 503 if it is rejected. */
+    public void dispatch(HttpServletRequest request, HttpServletResponse response, long timeoutMillis, Handler handler) {
+        AsyncContext async = request.startAsync(request, response);
+        // the bulkhead times requests out itself, the container must not complete one a worker is writing to
+        async.setTimeout(0);
+        submit(() -> {
+            try {
+                handler.handle(request, response);
+            }
+            catch (Throwable t) {
+                request.getServletContext().log("Error: request failed!", t);
+            }
+            finally {
+                async.complete();
+            }
+        }, timeoutMillis, () -> {
+            try {
+                byte[] body = "server busy\n".getBytes(StandardCharsets.UTF_8);
+                response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                response.setHeader("Retry-After", "1");
+                response.setContentType("text/plain;charset=UTF-8");
+                response.setContentLength(body.length);
+                response.getOutputStream().write(body);
+            }
+            catch (IOException e) {
+                // the client is gone
+            }
+            finally {
+                async.complete();
+            }
+        });
+    }
+
+    public int getQueued() {
+        return executor.getQueue().size();
+    }
+
+    public int getActive() {
+        return executor.getActiveCount();
+    }
+
+    public long getRejections() {
+        return rejections.sum();
+    }
+
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        timer.shutdownNow();
+    }
+
+    public interface Handler {
+        void handle(HttpServletRequest request, HttpServletResponse response) throws IOException;
+    }
+}
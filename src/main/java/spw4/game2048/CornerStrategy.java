@@ -0,0 +1,18 @@
+package spw4.game2048;
+
+import java.util.SplittableRandom;
+
+/** Keeps the big tiles in the lower left corner: down, then left, then right, up only if nothing else moves. */
+public class CornerStrategy implements Strategy {
+    private static final Direction[] PREFERENCE = {Direction.down, Direction.left, Direction.right, Direction.up};
+
+    @Override
+    public Direction chooseMove(Game game, SplittableRandom random) {
+        for (Direction direction : PREFERENCE) {
+            if (game.isLegal(direction)) {
+                return direction;
+            }
+        }
+        return Direction.up;
+    }
+}
@@ -0,0 +1,155 @@
+package spw4.game2048;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Answers of the game API. A delta holds only the cells a request changed,
+ * the spawned tile, the score and the status; a full answer holds the id and
+ * every cell, for clients that have to resync. Both exist as JSON and as a
+ * binary frame:
+ * <pre>
+ * byte   flags           FULL, MOVED, OVER, WON, CAN_UNDO, CAN_REDO
+ * byte   size
+ * byte   legal moves     bit mask of {@link Direction#mask()}
+ * byte   spawned exponent, 0 if no tile spawned
+ * byte   spawned cell    row * size + col
+ * byte   health          percent, see {@link Evaluation#getHealth()}
+ * int    score
+ * full:  16 bytes id, then size * size exponents
+ * delta: short count, then count pairs of cell and exponent
+ * </pre>
+ * Exponents are the base 2 logarithm of the tile, 0 for an empty cell, cells
+ * and exponents are unsigned bytes.
+ */
+public final class DeltaEncoder {
+    public static final int FULL = 1;
+    public static final int MOVED = 2;
+    public static final int OVER = 4;
+    public static final int WON = 8;
+    public static final int CAN_UNDO = 16;
+    public static final int CAN_REDO = 32;
+
+    private static final int HEADER_BYTES = 10;
+
+    private DeltaEncoder() {
+    }
+
+    /** Exponents of all cells in row-major order, taken before a request to diff against. */
+    public static byte[] capture(Game game) {
+        int size = game.getSize();
+        byte[] cells = new byte[size * size];
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                cells[row * size + col] = exponent(game.getValueAt(row, col));
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Encodes the game as JSON, as a delta against {@code before} or in full
+     * if {@code before} is null. {@code result} is the result of the move of
+     * the request, if there was one.
+     */
+    public static String toJson(UUID id, Game game, byte[] before, MoveResult result) {
+        byte[] after = capture(game);
+        StringBuilder sb = new StringBuilder(64 + (before == null ? 6 * after.length : 0));
+        sb.append("{\"id\":\"").append(id)
+                .append("\",\"size\":").append(game.getSize())
+                .append(",\"score\":").append(game.getScore())
+                .append(",\"health\":").append(health(game))
+                .append(",\"moved\":").append(result != null && result.isMoved())
+                .append(",\"over\":").append(game.isOver())
+                .append(",\"won\":").append(game.isWon())
+                .append(",\"undo\":").append(game.canUndo())
+                .append(",\"redo\":").append(game.canRedo())
+                .append(",\"legal\":").append(game.isOver() ? 0 : game.getLegalMoves())
+                .append(",\"spawn\":");
+        if (result != null && result.getSpawnedValue() != 0) {
+            sb.append('[').append(result.getSpawnedRow() * game.getSize() + result.getSpawnedCol())
+                    .append(',').append(result.getSpawnedValue()).append(']');
+        }
+        else {
+            sb.append("null");
+        }
+        if (before == null) {
+            sb.append(",\"board\":[");
+            for (int cell = 0; cell < after.length; cell++) {
+                if (cell > 0) sb.append(',');
+                sb.append(value(after[cell]));
+            }
+        }
+        else {
+            sb.append(",\"changed\":[");
+            boolean first = true;
+            for (int cell = 0; cell < after.length; cell++) {
+                if (after[cell] != before[cell]) {
+                    if (!first) sb.append(',');
+                    sb.append(cell).append(',').append(value(after[cell]));
+                    first = false;
+                }
+            }
+        }
+        return sb.append("]}").toString();
+    }
+
+    /** Encodes the game as a binary frame, see {@link #toJson(UUID, Game, byte[], MoveResult)}. */
+    public static byte[] toBinary(UUID id, Game game, byte[] before, MoveResult result) {
+        byte[] after = capture(game);
+        int changed = 0;
+        if (before != null) {
+            for (int cell = 0; cell < after.length; cell++) {
+                if (after[cell] != before[cell]) changed++;
+            }
+        }
+        int length = HEADER_BYTES + (before == null ? 16 + after.length : 2 + 2 * changed);
+        ByteBuffer frame = ByteBuffer.allocate(length);
+
+        int flags = before == null ? FULL : 0;
+        if (result != null && result.isMoved()) flags |= MOVED;
+        if (game.isOver()) flags |= OVER;
+        if (game.isWon()) flags |= WON;
+        if (game.canUndo()) flags |= CAN_UNDO;
+        if (game.canRedo()) flags |= CAN_REDO;
+        frame.put((byte) flags);
+        frame.put((byte) game.getSize());
+        frame.put((byte) (game.isOver() ? 0 : game.getLegalMoves()));
+        if (result != null && result.getSpawnedValue() != 0) {
+            frame.put(exponent(result.getSpawnedValue()));
+            frame.put((byte) (result.getSpawnedRow() * game.getSize() + result.getSpawnedCol()));
+        }
+        else {
+            frame.put((byte) 0).put((byte) 0);
+        }
+        frame.put((byte) health(game));
+        frame.putInt(game.getScore());
+
+        if (before == null) {
+            frame.putLong(id.getMostSignificantBits());
+            frame.putLong(id.getLeastSignificantBits());
+            frame.put(after);
+        }
+        else {
+            frame.putShort((short) changed);
+            for (int cell = 0; cell < after.length; cell++) {
+                if (after[cell] != before[cell]) {
+                    frame.put((byte) cell).put(after[cell]);
+                }
+            }
+        }
+        return frame.array();
+    }
+
+    private static int health(Game game) {
+        return (int) Math.round(100 * BoardEvaluator.evaluate(game).getHealth());
+    }
+
+    private static byte exponent(int value) {
+        return (byte) (value == 0 ? 0 : Integer.numberOfTrailingZeros(value));
+    }
+
+    private static int value(byte exponent) {
+        return exponent == 0 ? 0 : 1 << exponent;
+    }
+}
@@ -4,5 +4,9 @@ public enum Direction {
     up,
     down,
     left,
-    right
+    right;
+
+    public int mask() {
+        return 1 << ordinal();
+    }
 }
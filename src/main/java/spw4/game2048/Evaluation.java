@@ -0,0 +1,55 @@
+package spw4.game2048;
+
+/** Heuristic features of a board, summed over all rows and columns. See {@link BoardEvaluator}. */
+public final class Evaluation {
+    private final double monotonicity;
+    private final double smoothness;
+    private final int emptyCells;
+    private final int merges;
+    private final double score;
+    private final int cells;
+
+    Evaluation(double monotonicity, double smoothness, int emptyCells, int merges, double score, int cells) {
+        this.monotonicity = monotonicity;
+        this.smoothness = smoothness;
+        this.emptyCells = emptyCells;
+        this.merges = merges;
+        this.score = score;
+        this.cells = cells;
+    }
+
+    /** Zero if every line is sorted, more negative the more tiles are out of order. */
+    public double getMonotonicity() {
+        return monotonicity;
+    }
+
+    /** Zero if all neighbouring tiles are equal, minus the sum of their exponent differences otherwise. */
+    public double getSmoothness() {
+        return smoothness;
+    }
+
+    public int getEmptyCells() {
+        return emptyCells;
+    }
+
+    /** Merges a slide would make, counted along every row and every column. */
+    public int getMerges() {
+        return merges;
+    }
+
+    /** Combined score, the default heuristic of the {@link ExpectimaxSolver}. */
+    public double getScore() {
+        return score;
+    }
+
+    /** Share of room to move between 0 and 1: empty cells and merges, counting half of the board as fully healthy. */
+    public double getHealth() {
+        return Math.min(1.0, 2.0 * (emptyCells + merges) / cells);
+    }
+
+    @Override
+    public String toString() {
+        return "score " + score + ", monotonicity " + monotonicity + ", smoothness " + smoothness
+                + ", empty " + emptyCells + ", merges " + merges;
+    }
+}
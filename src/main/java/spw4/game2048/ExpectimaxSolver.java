@@ -0,0 +1,305 @@
+package spw4.game2048;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongToDoubleFunction;
+
+/**
+ * Expectimax search over a packed copy of a 4x4 {@link Game}. The root moves
+ * and the spawns of the first chance level are forked across the pool, every
+ * worker then searches sequentially with its own transposition table. Chance
+ * branches whose probability drops below the cutoff are scored by the heuristic,
+ * the depth grows by one ply at 8 and at 4 empty cells. With a heuristic that
+ * does not change under rotation and reflection, chance nodes are cached under
+ * their {@link Symmetry#canonical(long) canonical} board, so all 8 images of a
+ * position share one entry.
+ * <p>
+ * With a time budget the search deepens iteratively from one ply and returns
+ * the move of the deepest search that finished before the deadline.
+ */
+public class ExpectimaxSolver {
+    public static final int DEFAULT_DEPTH = 6;
+    public static final double DEFAULT_CUTOFF = 0.0001;
+
+    private static final double PROBABILITY_TWO = 0.9;
+    private static final double PROBABILITY_FOUR = 0.1;
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final ForkJoinPool pool;
+    private final LongToDoubleFunction heuristic;
+    private final int baseDepth;
+    private final double cutoff;
+    private final boolean symmetric;
+    private final AtomicInteger generation = new AtomicInteger();
+    private final ThreadLocal<TranspositionTable> tables = ThreadLocal.withInitial(TranspositionTable::new);
+
+    public ExpectimaxSolver() {
+        this(ForkJoinPool.commonPool(), BoardEvaluator::score, DEFAULT_DEPTH, DEFAULT_CUTOFF, true);
+    }
+
+    public ExpectimaxSolver(ForkJoinPool pool, LongToDoubleFunction heuristic, int baseDepth, double cutoff) {
+        this(pool, heuristic, baseDepth, cutoff, false);
+    }
+
+    public ExpectimaxSolver(ForkJoinPool pool, LongToDoubleFunction heuristic, int baseDepth, double cutoff,
+                            boolean symmetricHeuristic) {
+        if (baseDepth < 1) {
+            throw new IllegalArgumentException("Error: " + baseDepth + " is not a valid depth!");
+        }
+        this.pool = pool;
+        this.heuristic = heuristic;
+        this.baseDepth = baseDepth;
+        this.cutoff = cutoff;
+        this.symmetric = symmetricHeuristic;
+    }
+
+    /**
+     * Returns the best move for the current state of the game, or null if no
+     * move changes the board. The game itself is only read, never moved.
+     */
+    public Hint findBestMove(Game game) {
+        return findBestMove(BitBoard.pack(game.getBoard()));
+    }
+
+    public Hint findBestMove(long cells) {
+        int depth = searchDepth(BitBoard.countEmpty(cells));
+        return pool.invoke(new RootTask(cells, depth, new Search(generation.incrementAndGet(), Search.NO_DEADLINE)));
+    }
+
+    /**
+     * Like {@link #findBestMove(long)}, but stops deepening after about
+     * {@code millis}; the one-ply search always completes.
+     */
+    public Hint findBestMove(long cells, long millis) {
+        long deadline = System.nanoTime() + millis * 1_000_000L;
+        int depth = searchDepth(BitBoard.countEmpty(cells));
+        Hint best = pool.invoke(new RootTask(cells, 1, new Search(generation.incrementAndGet(), Search.NO_DEADLINE)));
+        for (int ply = 2; ply <= depth && best != null && System.nanoTime() - deadline < 0; ply++) {
+            Search search = new Search(generation.incrementAndGet(), deadline);
+            Hint hint = pool.invoke(new RootTask(cells, ply, search));
+            if (search.expired) {
+                break;
+            }
+            best = hint;
+        }
+        return best;
+    }
+
+    int searchDepth(int empty) {
+        if (empty <= 4) {
+            return baseDepth + 2;
+        }
+        if (empty <= 8) {
+            return baseDepth + 1;
+        }
+        return baseDepth;
+    }
+
+    /** Cheap heuristic: empty cells and neighbouring pairs that can still merge. */
+    static double evaluate(long cells) {
+        long empty = BitBoard.emptyCells(cells);
+        long occupied = ~empty & 0x1111111111111111L;
+        long rowPairs = BitBoard.emptyCells(cells ^ (cells >>> 4)) & occupied & 0x0111011101110111L;
+        long colPairs = BitBoard.emptyCells(cells ^ (cells >>> 16)) & occupied & 0x0000111111111111L;
+        return 1 + 4 * Long.bitCount(empty) + Long.bitCount(rowPairs) + Long.bitCount(colPairs);
+    }
+
+    private double chance(long cells, int depth, double probability, TranspositionTable table, Search search) {
+        if (depth <= 0 || probability < cutoff) {
+            return heuristic.applyAsDouble(cells);
+        }
+        if (search.isExpired(table)) {
+            return 0;
+        }
+        long key = symmetric ? Symmetry.canonical(cells) : cells;
+        int slot = table.find(key, depth, search.generation);
+        if (slot >= 0) {
+            return table.values[slot];
+        }
+        long empty = BitBoard.emptyCells(cells);
+        int count = Long.bitCount(empty);
+        double sum = 0;
+        while (empty != 0) {
+            long tile = Long.lowestOneBit(empty);
+            sum += PROBABILITY_TWO * max(cells | tile, depth - 1, probability * PROBABILITY_TWO / count, table, search);
+            sum += PROBABILITY_FOUR * max(cells | tile << 1, depth - 1, probability * PROBABILITY_FOUR / count, table, search);
+            empty &= empty - 1;
+        }
+        double value = sum / count;
+        table.store(key, depth, search.generation, value);
+        return value;
+    }
+
+    private double max(long cells, int depth, double probability, TranspositionTable table, Search search) {
+        double best = 0;
+        int moves = BitBoard.legalMoves(cells);
+        for (Direction direction : DIRECTIONS) {
+            if ((moves & direction.mask()) != 0) {
+                best = Math.max(best, chance(BitBoard.move(cells, direction), depth, probability, table, search));
+            }
+        }
+        return best;
+    }
+
+    private final class RootTask extends RecursiveTask<Hint> {
+        private final long cells;
+        private final int depth;
+        private final Search search;
+
+        RootTask(long cells, int depth, Search search) {
+            this.cells = cells;
+            this.depth = depth;
+            this.search = search;
+        }
+
+        @Override
+        protected Hint compute() {
+            List<Direction> directions = new ArrayList<>();
+            List<ChanceTask> tasks = new ArrayList<>();
+            for (Direction direction : DIRECTIONS) {
+                long moved = BitBoard.move(cells, direction);
+                if (moved != cells) {
+                    directions.add(direction);
+                    tasks.add(new ChanceTask(moved, depth, search));
+                }
+            }
+            ForkJoinTask.invokeAll(tasks);
+
+            Hint best = null;
+            for (int i = 0; i < tasks.size(); i++) {
+                double value = tasks.get(i).join();
+                if (best == null || value > best.getExpectedValue()) {
+                    best = new Hint(directions.get(i), value);
+                }
+            }
+            return best;
+        }
+    }
+
+    private final class ChanceTask extends RecursiveTask<Double> {
+        private final long cells;
+        private final int depth;
+        private final Search search;
+
+        ChanceTask(long cells, int depth, Search search) {
+            this.cells = cells;
+            this.depth = depth;
+            this.search = search;
+        }
+
+        @Override
+        protected Double compute() {
+            long empty = BitBoard.emptyCells(cells);
+            int count = Long.bitCount(empty);
+            List<SpawnTask> tasks = new ArrayList<>(2 * count);
+            while (empty != 0) {
+                long tile = Long.lowestOneBit(empty);
+                tasks.add(new SpawnTask(cells | tile, depth - 1, PROBABILITY_TWO, count, search));
+                tasks.add(new SpawnTask(cells | tile << 1, depth - 1, PROBABILITY_FOUR, count, search));
+                empty &= empty - 1;
+            }
+            ForkJoinTask.invokeAll(tasks);
+
+            double sum = 0;
+            for (SpawnTask task : tasks) {
+                sum += task.weight * task.join();
+            }
+            return sum / count;
+        }
+    }
+
+    private final class SpawnTask extends RecursiveTask<Double> {
+        private final long cells;
+        private final int depth;
+        private final double weight;
+        private final int count;
+        private final Search search;
+
+        SpawnTask(long cells, int depth, double weight, int count, Search search) {
+            this.cells = cells;
+            this.depth = depth;
+            this.weight = weight;
+            this.count = count;
+            this.search = search;
+        }
+
+        @Override
+        protected Double compute() {
+            return max(cells, depth, weight / count, tables.get(), search);
+        }
+    }
+
+    /** Generation and deadline of one search; once expired, every open node returns at once. */
+    private static final class Search {
+        private static final int CHECK_INTERVAL = 1 << 10;
+        static final long NO_DEADLINE = Long.MAX_VALUE;
+
+        final int generation;
+        final long deadline;
+        volatile boolean expired;
+
+        Search(int generation, long deadline) {
+            this.generation = generation;
+            this.deadline = deadline;
+        }
+
+        boolean isExpired(TranspositionTable table) {
+            if (expired) {
+                return true;
+            }
+            if (deadline != NO_DEADLINE && (++table.nodes & (CHECK_INTERVAL - 1)) == 0 && System.nanoTime() - deadline > 0) {
+                expired = true;
+            }
+            return expired;
+        }
+    }
+
+    /** Open-addressed cache of chance node values, one per worker thread. */
+    private static final class TranspositionTable {
+        private static final int BITS = 16;
+        private static final int PROBES = 4;
+
+        final long[] keys = new long[1 << BITS];
+        final double[] values = new double[1 << BITS];
+        final byte[] depths = new byte[1 << BITS];
+        final int[] generations = new int[1 << BITS];
+        int nodes;
+
+        int find(long cells, int depth, int searchGeneration) {
+            int index = index(cells);
+            for (int probe = 0; probe < PROBES; probe++) {
+                int slot = (index + probe) & (keys.length - 1);
+                if (generations[slot] != searchGeneration) {
+                    return -1;
+                }
+                if (keys[slot] == cells) {
+                    return depths[slot] >= depth ? slot : -1;
+                }
+            }
+            return -1;
+        }
+
+        void store(long cells, int depth, int searchGeneration, double value) {
+            int index = index(cells);
+            int slot = index;
+            for (int probe = 0; probe < PROBES; probe++) {
+                slot = (index + probe) & (keys.length - 1);
+                if (generations[slot] != searchGeneration || keys[slot] == cells) {
+                    break;
+                }
+            }
+            keys[slot] = cells;
+            values[slot] = value;
+            depths[slot] = (byte) depth;
+            generations[slot] = searchGeneration;
+        }
+
+        private static int index(long cells) {
+            return (int) ((cells * 0x9E3779B97F4A7C15L) >>> (64 - BITS));
+        }
+    }
+}
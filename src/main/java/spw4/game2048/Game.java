@@ -1,28 +1,60 @@
 package spw4.game2048;
 
-import java.awt.*;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Formatter;
 import java.util.Random;
 
 public class Game {
-    private static final int size = 4;
+    private final int size;
     private int countNumbers = 0;
-    private int gameBoard[][];
-    private Random rand;
+    private final Board board;
+    private final MoveResult moveResult = new MoveResult();
+    private final RandomSource rand;
     private int score = 0;
     private boolean statusIsWon = false;
     private boolean statusIsOver = false;
+    private int legalMoves = 0;
+    private GameHistory history;
+    private MoveLog moveLog;
 
     public Game() {
-        gameBoard = new int[size][size];
-        rand = new Random();
+        this(new BitBoard());
     }
 
     public Game (Random rand) {
-        this();
+        this(new BitBoard(), rand);
+    }
+
+    public Game(RandomSource rand) {
+        this(new BitBoard(), rand);
+    }
+
+    public Game(int size) {
+        this(Board.create(size));
+    }
+
+    public Game(int size, Random rand) {
+        this(Board.create(size), rand);
+    }
+
+    public Game(int size, RandomSource rand) {
+        this(Board.create(size), rand);
+    }
+
+    public Game(Board board) {
+        this(board, RandomSource.create());
+    }
+
+    public Game(Board board, Random rand) {
+        this(board, RandomSource.of(rand));
+    }
+
+    /** Plays on the given board, which may already hold tiles. */
+    public Game(Board board, RandomSource rand) {
+        this.board = board;
+        this.size = board.getSize();
         this.rand = rand;
+        this.countNumbers = size * size - board.countEmpty();
+        this.legalMoves = board.legalMoves();
     }
 
     public int getScore() {
@@ -37,17 +69,26 @@ public class Game {
         return statusIsWon;
     }
 
+    /** Returns one bit per {@link Direction#mask()} for every move that changes the board. */
+    public int getLegalMoves() {
+        return legalMoves;
+    }
+
+    public boolean isLegal(Direction direction) {
+        return (legalMoves & direction.mask()) != 0;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
         Formatter fm = new Formatter(sb);
         for(int row = 0; row < size; row ++) {
             for(int col = 0; col < size; col++) {
-                if(gameBoard[row][col] == 0) {
+                if(board.getValueAt(row, col) == 0) {
                     fm.format("    .");
                 }
                 else {
-                    fm.format("%5d", gameBoard[row][col]);
+                    fm.format("%5d", board.getValueAt(row, col));
                 }
             }
             fm.format("\n");
@@ -59,6 +100,66 @@ public class Game {
         for(int i = 0; i < 2; i++) {
             spawnNewNumber();
         }
+        restartHistory();
+    }
+
+    /**
+     * Keeps the last {@code depth} moves for {@link #undo()} and {@link #redo()},
+     * starting from the current state. Fails with an
+     * {@link UnsupportedOperationException} if the random source cannot save
+     * its state, as undo could not rewind the spawns.
+     */
+    public void enableHistory(int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Error: " + depth + " is not a valid history depth!");
+        }
+        GameHistory enabled = new GameHistory(depth + 1, stateLength());
+        enabled.record(this);
+        history = enabled;
+    }
+
+    public boolean canUndo() {
+        return history != null && history.canUndo();
+    }
+
+    public boolean canRedo() {
+        return history != null && history.canRedo();
+    }
+
+    /** Goes back to the state before the last move, returns false if there is nothing to undo. */
+    public boolean undo() {
+        if(history == null || !history.undo(this)) {
+            return false;
+        }
+        if(moveLog != null) {
+            moveLog.undoLast();
+        }
+        return true;
+    }
+
+    public boolean redo() {
+        if(history == null || !history.redo(this)) {
+            return false;
+        }
+        if(moveLog != null) {
+            moveLog.redoLast();
+        }
+        return true;
+    }
+
+    public MoveLog getMoveLog() {
+        return moveLog;
+    }
+
+    /**
+     * Appends every move that changes the board to the log. Only games started
+     * with {@link #initialize()} from a seeded {@link RandomSource} can be replayed.
+     */
+    public void setMoveLog(MoveLog moveLog) {
+        if(moveLog != null && moveLog.getSize() != size) {
+            throw new IllegalArgumentException("Error: " + moveLog.getSize() + " is not a valid log size!");
+        }
+        this.moveLog = moveLog;
     }
 
     public void moveLeft() {
@@ -77,20 +178,35 @@ public class Game {
         move(Direction.down);
     }
 
+    /** Seed of the random source, throws if the game draws from a {@link Random}. */
+    public long getSeed() {
+        return rand.getSeed();
+    }
+
     public int getSize() {
-        return gameBoard.length;
+        return size;
+    }
+
+    public Board getBoard() {
+        return board;
     }
 
     public int[][] getGameBoard() {
+        int[][] gameBoard = new int[size][size];
+        for(int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                gameBoard[row][col] = board.getValueAt(row, col);
+            }
+        }
         return gameBoard;
     }
 
     public int getNumberOnPosition(int row, int col) {
-        return gameBoard[row][col];
+        return board.getValueAt(row, col);
     }
 
     public int getValueAt(int row, int col) {
-        return gameBoard[row][col];
+        return board.getValueAt(row, col);
     }
 
     public int getNumbersCount() {
@@ -98,12 +214,10 @@ public class Game {
     }
 
     public void reset() {
-        for(int row = 0; row < size; row++) {
-            for (int col = 0; col < size; col++) {
-                gameBoard[row][col] = 0;
-            }
-        }
+        board.clear();
         countNumbers = 0;
+        legalMoves = 0;
+        restartHistory();
     }
 
     public void setGameBoard(int[][] board) {
@@ -112,171 +226,99 @@ public class Game {
                 if(board[row][col] != 0) {
                     countNumbers++;
                 }
-                gameBoard[row][col] = board[row][col];
+                this.board.setValueAt(row, col, board[row][col]);
             }
         }
+        legalMoves = this.board.legalMoves();
+        restartHistory();
     }
 
     public int createRandomNumber(int bound) {
         return rand.nextInt(bound);
     }
 
-    public void move(Direction direction) {
-        int prevBoard[][] = copyBoard();
-        int treatedFields = 0;
-        switch(direction) {
-            case up:
-                for (int col = 0; col < size; col++) {
-                    treatedFields = 0;
-                    for(int row = 1; row < size; row++) {
-                        if (gameBoard[row][col] != 0) {
-                            int curNumber = gameBoard[row][col];
-                            gameBoard[row][col] = 0;
-                            for(int i = row - 1; i >= treatedFields; i--) {
-                                if (i == treatedFields && gameBoard[i][col] == 0) {
-                                    gameBoard[i][col] += curNumber;
-                                    break;
-                                }
-                                if(gameBoard[i][col] != 0) {
-                                    if (gameBoard[i][col] == curNumber) {
-                                        gameBoard[i][col] += curNumber;
-                                        handleScore(gameBoard[i][col]);
-                                        treatedFields++;
-                                        countNumbers--;
-                                    }
-                                    else {
-                                        gameBoard[i + 1][col] += curNumber;
-                                    }
-                                    break;
-                                }
-                            }
-                        }
-                    }
-                }
-                break;
-            case down:
-                for (int col = size - 1; col >= 0; col--) {
-                    treatedFields = 0;
-                    for(int row = size - 2; row >= 0; row--) {
-                        if (gameBoard[row][col] != 0) {
-                            int curNumber = gameBoard[row][col];
-                            gameBoard[row][col] = 0;
-                            for(int i = row + 1; i < size - treatedFields; i++) {
-                                if (i == size - 1 - treatedFields && gameBoard[i][col] == 0) {
-                                    gameBoard[i][col] += curNumber;
-                                    break;
-                                }
-                                if(gameBoard[i][col] != 0) {
-                                    if (gameBoard[i][col] == curNumber) {
-                                        gameBoard[i][col] += curNumber;
-                                        handleScore(gameBoard[i][col]);
-                                        treatedFields++;
-                                        countNumbers--;
-                                    }
-                                    else {
-                                        gameBoard[i - 1][col] += curNumber;
-                                    }
-                                    break;
-                                }
-                            }
-                        }
-                    }
-                }
-                break;
-            case left:
-                for(int row = 0; row < size; row++) {
-                    treatedFields = 0;
-                    for (int col = 1; col < size; col++) {
-                        if (gameBoard[row][col] != 0) {
-                            int curNumber = gameBoard[row][col];
-                            gameBoard[row][col] = 0;
-                            for(int i = col - 1; i >= treatedFields; i--) {
-                                if (i == treatedFields && gameBoard[row][i] == 0) {
-                                    gameBoard[row][i] += curNumber;
-                                    break;
-                                }
-                                if(gameBoard[row][i] != 0) {
-                                    if (gameBoard[row][i] == curNumber) {
-                                        gameBoard[row][i] += curNumber;
-                                        handleScore(gameBoard[row][i]);
-                                        treatedFields++;
-                                        countNumbers--;
-                                    }
-                                    else {
-                                        gameBoard[row][i + 1] += curNumber;
-                                    }
-                                    break;
-                                }
-                            }
-                        }
-                    }
-                }
-                break;
-            case right:
-                for(int row = size - 1; row >= 0; row--) {
-                    treatedFields = 0;
-                    for (int col = size - 2; col >= 0; col--) {
-                        if (gameBoard[row][col] != 0) {
-                            int curNumber = gameBoard[row][col];
-                            gameBoard[row][col] = 0;
-                            for(int i = col + 1; i < size - treatedFields; i++) {
-                                if (i == size - 1 - treatedFields && gameBoard[row][i] == 0) {
-                                    gameBoard[row][i] += curNumber;
-                                    break;
-                                }
-                                if(gameBoard[row][i] != 0) {
-                                    if (gameBoard[row][i] == curNumber) {
-                                        gameBoard[row][i] += curNumber;
-                                        handleScore(gameBoard[row][i]);
-                                        treatedFields++;
-                                        countNumbers--;
-                                    }
-                                    else {
-                                        gameBoard[row][i - 1] += curNumber;
-                                    }
-                                    break;
-                                }
-                            }
-                        }
-                    }
-                }
-                break;
+    public MoveResult move(Direction direction) {
+        if(!isLegal(direction)) {
+            moveResult.reset(size);
+            return moveResult;
         }
-        if(!Arrays.deepEquals(prevBoard, gameBoard)) {
+        if(board.move(direction, moveResult)) {
+            score += moveResult.getScoreDelta();
+            countNumbers -= moveResult.getMerges();
+            if(moveResult.isWon()) {
+                statusIsOver = true;
+                statusIsWon = true;
+            }
             spawnNewNumber();
+            if(history != null) {
+                history.record(this);
+            }
+            if(moveLog != null) {
+                moveLog.append(direction);
+            }
         }
+        return moveResult;
     }
 
-    private void spawnNewNumber() {
+    void spawnNewNumber() {
         if(countNumbers < size * size) {
-            Position pos = findRandomEmptyPos();
-            gameBoard[pos.row][pos.col] = createNewRandomNumber();
+            int cell = findRandomEmptyCell();
+            int number = createNewRandomNumber();
+            board.setValueAt(cell / size, cell % size, number);
+            moveResult.setSpawn(cell, number);
             countNumbers++;
         }
+        legalMoves = board.legalMoves();
 
         if(countNumbers == size * size && !findIfPossibleMovesExists()) {
             statusIsOver = true;
         }
     }
 
-    private boolean findIfPossibleMovesExists() {
-        for(int row = 0; row < size; row++) {
-            for (int col = 0; col < size; col++) {
-                if(row - 1 >= 0 && gameBoard[row][col] == gameBoard[row - 1][col]) {
-                    return true;
-                }
-                if(row + 1 < size && gameBoard[row][col] == gameBoard[row + 1][col]) {
-                    return true;
-                }
-                if(col - 1 >= 0 && gameBoard[row][col] == gameBoard[row][col - 1]) {
-                    return true;
-                }
-                if(col + 1 < size && gameBoard[row][col] == gameBoard[row][col + 1]) {
-                    return true;
-                }
-            }
+    /** Number of {@code long}s {@link #saveState(long[], int)} writes. */
+    int stateLength() {
+        return board.packedLength() + 2;
+    }
+
+    /**
+     * Packs the board followed by one word holding score, tile count, legal moves
+     * and status and one word with the state of the {@link RandomSource}.
+     */
+    void saveState(long[] dst, int offset) {
+        board.pack(dst, offset);
+        long status = score & 0xFFFFFFFFL
+                | (long) (countNumbers & 0xFFFF) << 32
+                | (long) legalMoves << 48;
+        if(statusIsWon) {
+            status |= 1L << 52;
+        }
+        if(statusIsOver) {
+            status |= 1L << 53;
         }
-        return false;
+        dst[offset + board.packedLength()] = status;
+        dst[offset + board.packedLength() + 1] = rand.getState();
+    }
+
+    void restoreState(long[] src, int offset) {
+        board.unpack(src, offset);
+        long status = src[offset + board.packedLength()];
+        score = (int) status;
+        countNumbers = (int) (status >>> 32) & 0xFFFF;
+        legalMoves = (int) (status >>> 48) & 0xF;
+        statusIsWon = (status & 1L << 52) != 0;
+        statusIsOver = (status & 1L << 53) != 0;
+        rand.setState(src[offset + board.packedLength() + 1]);
+    }
+
+    private void restartHistory() {
+        if(history != null) {
+            history.clear();
+            history.record(this);
+        }
+    }
+
+    boolean findIfPossibleMovesExists() {
+        return legalMoves != 0;
     }
 
     private int createNewRandomNumber() {
@@ -291,45 +333,13 @@ public class Game {
         return number;
     }
 
-    private Position findRandomEmptyPos() {
-        ArrayList<Position> emptyPos = findAllEmptyPos();
-        Position curPos = emptyPos.get(createRandomNumber(emptyPos.size()));
+    int findRandomEmptyCell() {
+        int cell = board.getEmptyCell(createRandomNumber(board.countEmpty()));
 
-        if(gameBoard[curPos.row][curPos.col] != 0) {
+        if(board.getValueAt(cell / size, cell % size) != 0) {
             throw new InvalidEmptyPosition("Error: Empty Position is not empty!");
         }
 
-        return curPos;
-    }
-
-    private ArrayList<Position> findAllEmptyPos() {
-        ArrayList<Position> emptyPos = new ArrayList<Position>();
-        for(int row = 0; row < size; row++) {
-            for(int col = 0; col < size; col++) {
-                if(gameBoard[row][col] == 0) {
-                    emptyPos.add(new Position(row, col));
-                }
-            }
-        }
-        return emptyPos;
-    }
-
-    private void handleScore(int value) {
-        score += value;
-        if(value == 2048) {
-            statusIsOver = true;
-            statusIsWon = true;
-        }
-    }
-
-    private int[][] copyBoard() {
-        int[][] board = new int[size][size];
-        for(int row = 0; row < size; row++) {
-            for (int col = 0; col < size; col++) {
-                board[row][col] = gameBoard[row][col];
-            }
-        }
-
-        return board;
+        return cell;
     }
 }
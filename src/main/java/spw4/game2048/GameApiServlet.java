@@ -0,0 +1,203 @@
+package spw4.game2048;
+
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Move API for pages that update in place: {@code action=new} starts a game,
+ * {@code up}, {@code down}, {@code left}, {@code right}, {@code undo} and
+ * {@code redo} change it and no action just reads it. The answer is the
+ * {@link DeltaEncoder delta} of the request, or the full game for a new game
+ * and with {@code full=true}. It is JSON unless {@code format=binary} is given
+ * or the client accepts {@code application/octet-stream}.
+ * <p>
+ * {@code action=batch&moves=LLURD} applies up to {@link GameSessions#MAX_BATCH}
+ * moves under one session lock and answers with the delta of the whole batch,
+ * whether each move changed the board and the {@code seq} number the client
+ * sent with it. A batch with a number not above the last one of the game is a
+ * retry, it is not applied again and answered with the full game.
+ * <p>
+ * {@code action=hint} searches the best move of a 4x4 game with the
+ * {@link ExpectimaxSolver}, deepening for at most two seconds, and answers
+ * with its direction and expected value as JSON. Searches run on the compute {@link Bulkhead}, everything else on
+ * the move bulkhead, so slow searches never hold up moves.
+ */
+@WebServlet(value = "/api/game", asyncSupported = true)
+public class GameApiServlet extends HttpServlet {
+    private static final String BINARY = "application/octet-stream";
+    private static final long MOVE_TIMEOUT_MILLIS = 5000;
+    private static final long HINT_TIMEOUT_MILLIS = 10000;
+    private static final long HINT_SEARCH_MILLIS = 2000;
+
+    private final ExpectimaxSolver solver = new ExpectimaxSolver();
+    private GameSessions sessions;
+    private Bulkhead moves;
+    private Bulkhead compute;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        sessions = (GameSessions) getServletContext().getAttribute(GameSessions.ATTRIBUTE);
+        moves = (Bulkhead) getServletContext().getAttribute(Bulkhead.MOVES);
+        compute = (Bulkhead) getServletContext().getAttribute(Bulkhead.COMPUTE);
+        if (sessions == null || moves == null || compute == null) {
+            throw new ServletException("Error: sessions are not available!");
+        }
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) {
+        if ("hint".equals(request.getParameter("action"))) {
+            compute.dispatch(request, response, HINT_TIMEOUT_MILLIS, this::hint);
+        }
+        else {
+            moves.dispatch(request, response, MOVE_TIMEOUT_MILLIS, this::handle);
+        }
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response) {
+        doGet(request, response);
+    }
+
+    private void hint(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        UUID id;
+        try {
+            id = UUID.fromString(String.valueOf(request.getParameter("id")));
+        }
+        catch (IllegalArgumentException e) {
+            sendError(response, HttpServletResponse.SC_BAD_REQUEST, "missing id");
+            return;
+        }
+        // only the packed board is taken under the session lock, the search runs without it
+        long[] cells = sessions.read(id, game -> game.getSize() == BitBoard.SIZE ? new long[] {BitBoard.pack(game.getBoard())} : new long[0]);
+        if (cells == null) {
+            sendError(response, HttpServletResponse.SC_NOT_FOUND, "unknown game");
+            return;
+        }
+        if (cells.length == 0) {
+            sendError(response, HttpServletResponse.SC_BAD_REQUEST, "hints need a 4x4 game");
+            return;
+        }
+        Hint hint = solver.findBestMove(cells[0], HINT_SEARCH_MILLIS);
+        String json = "{\"id\":\"" + id + "\",\"hint\":" + (hint == null ? "null,\"value\":0"
+                : "\"" + hint.getDirection() + "\",\"value\":" + hint.getExpectedValue()) + "}";
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        response.setContentType("application/json;charset=UTF-8");
+        response.setHeader("Cache-Control", "no-store");
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private void handle(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        boolean binary = "binary".equals(request.getParameter("format"))
+                || request.getParameter("format") == null && accepts(request, BINARY);
+        boolean full = "true".equals(request.getParameter("full"));
+        String action = request.getParameter("action");
+        if (action == null) action = "";
+
+        byte[] body;
+        try {
+            if ("new".equals(action)) {
+                UUID id = sessions.create(GameServlet.parseSize(request.getParameter("size")));
+                body = sessions.read(id, game -> encode(id, game, null, null, binary));
+            }
+            else if ("batch".equals(action)) {
+                UUID id = UUID.fromString(String.valueOf(request.getParameter("id")));
+                Direction[] moves = GameSessions.parseMoves(request.getParameter("moves"));
+                String seqString = request.getParameter("seq");
+                long sequence = seqString != null ? Long.parseLong(seqString) : -1;
+                body = sessions.update(id, game -> {
+                    byte[] before = full ? null : DeltaEncoder.capture(game);
+                    boolean[] moved = sessions.actAll(id, game, moves, sequence);
+                    return encodeBatch(id, game, moved == null ? null : before, moved, sequence, binary);
+                });
+                if (body == null) {
+                    sendError(response, HttpServletResponse.SC_NOT_FOUND, "unknown game");
+                    return;
+                }
+            }
+            else {
+                String idString = request.getParameter("id");
+                if (idString == null) {
+                    sendError(response, HttpServletResponse.SC_BAD_REQUEST, "missing id");
+                    return;
+                }
+                UUID id = UUID.fromString(idString);
+                String requested = action;
+                body = sessions.update(id, game -> {
+                    byte[] before = full ? null : DeltaEncoder.capture(game);
+                    MoveResult result = sessions.act(id, game, requested);
+                    return encode(id, game, before, result, binary);
+                });
+                if (body == null) {
+                    sendError(response, HttpServletResponse.SC_NOT_FOUND, "unknown game");
+                    return;
+                }
+            }
+        }
+        catch (IllegalArgumentException e) {
+            sendError(response, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+
+        response.setContentType(binary ? BINARY : "application/json;charset=UTF-8");
+        response.setHeader("Cache-Control", "no-store");
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private static byte[] encode(UUID id, Game game, byte[] before, MoveResult result, boolean binary) {
+        if (binary) {
+            return DeltaEncoder.toBinary(id, game, before, result);
+        }
+        return DeltaEncoder.toJson(id, game, before, result).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Answer to a batch: the delta of the batch, or the full game for a retry
+     * ({@code moved} is null then), with the sequence number and a flag per move.
+     * The binary frame appends the sequence number as a long, the number of
+     * moves as a short and a byte per move.
+     */
+    private static byte[] encodeBatch(UUID id, Game game, byte[] before, boolean[] moved, long sequence, boolean binary) {
+        boolean[] flags = moved != null ? moved : new boolean[0];
+        if (binary) {
+            byte[] frame = DeltaEncoder.toBinary(id, game, before, null);
+            ByteBuffer buffer = ByteBuffer.allocate(frame.length + 10 + flags.length);
+            buffer.put(frame).putLong(sequence).putShort((short) flags.length);
+            for (boolean flag : flags) {
+                buffer.put((byte) (flag ? 1 : 0));
+            }
+            return buffer.array();
+        }
+        StringBuilder sb = new StringBuilder(40 + flags.length);
+        sb.append("{\"seq\":").append(sequence).append(",\"duplicate\":").append(moved == null).append(",\"results\":\"");
+        for (boolean flag : flags) {
+            sb.append(flag ? '1' : '0');
+        }
+        String state = DeltaEncoder.toJson(id, game, before, null);
+        sb.append("\",").append(state, 1, state.length());
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static boolean accepts(HttpServletRequest request, String type) {
+        String accept = request.getHeader("Accept");
+        return accept != null && accept.contains(type);
+    }
+
+    private static void sendError(HttpServletResponse response, int status, String message) throws IOException {
+        byte[] body = ("{\"error\":\"" + message.replace("\\", "\\\\").replace("\"", "\\\"") + "\"}").getBytes(StandardCharsets.UTF_8);
+        response.setStatus(status);
+        response.setContentType("application/json;charset=UTF-8");
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+}
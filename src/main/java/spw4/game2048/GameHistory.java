@@ -0,0 +1,68 @@
+package spw4.game2048;
+
+/**
+ * Bounded undo/redo history of a {@link Game}. Every entry is the packed board
+ * followed by score, status and random state, all entries share a single
+ * {@code long[]} used as a ring buffer, so recording, undoing and redoing
+ * never allocate. Once the ring is full the oldest entry is overwritten.
+ */
+final class GameHistory {
+    private final long[] states;
+    private final int stride;
+    private final int capacity;
+    private long oldest = 0;
+    private long current = -1;
+    private long newest = -1;
+
+    GameHistory(int capacity, int stride) {
+        this.capacity = capacity;
+        this.stride = stride;
+        states = new long[capacity * stride];
+    }
+
+    void clear() {
+        oldest = 0;
+        current = -1;
+        newest = -1;
+    }
+
+    /** Stores the state of the game as the newest entry and drops everything that could be redone. */
+    void record(Game game) {
+        current++;
+        newest = current;
+        if (newest - oldest >= capacity) {
+            oldest = newest - capacity + 1;
+        }
+        game.saveState(states, offset(current));
+    }
+
+    boolean canUndo() {
+        return current > oldest;
+    }
+
+    boolean canRedo() {
+        return current < newest;
+    }
+
+    boolean undo(Game game) {
+        if (!canUndo()) {
+            return false;
+        }
+        current--;
+        game.restoreState(states, offset(current));
+        return true;
+    }
+
+    boolean redo(Game game) {
+        if (!canRedo()) {
+            return false;
+        }
+        current++;
+        game.restoreState(states, offset(current));
+        return true;
+    }
+
+    private int offset(long entry) {
+        return (int) (entry % capacity) * stride;
+    }
+}
@@ -0,0 +1,306 @@
+package spw4.game2048;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.function.UnaryOperator;
+
+/**
+ * The HTML page of a game. All static markup is encoded to UTF-8 once, so is
+ * the cell markup of every tile value and both variants of every button; a
+ * request only copies these chunks into a reusable {@link Buffer} and writes
+ * the id, the score and the cell numbers as ASCII digits.
+ */
+public final class GamePage {
+    private static final byte[] HEAD = head(path -> path);
+    private static final byte[] BEFORE_SCORE = bytes(
+            "\">\n"
+            + "    <h1 class=\"m-5 text-center\">Play 2048:</h1>\n"
+            + "\n"
+            + "    <div class=\"row\">\n"
+            + "        <div class=\"col-4\"></div>\n"
+            + "        <div class=\"col\">\n"
+            + "            <div class=\"row\">\n"
+            + "                <div class=\"col text-center pb-4\"><h5>Moves: </h5></div>\n"
+            + "                <div class=\"col text-center pb-4\"><h5>Score: <span id=\"score\">");
+    private static final byte[] BEFORE_HEALTH = bytes(
+            "</span></h5></div>\n"
+            + "            </div>\n"
+            + "            <div class=\"row\">\n"
+            + "                <div class=\"col pb-4\"><div class=\"progress\" title=\"Board health\"><div id=\"health\" class=\"progress-bar ");
+    private static final byte[] SUCCESS = bytes("bg-success");
+    private static final byte[] WARNING = bytes("bg-warning");
+    private static final byte[] DANGER = bytes("bg-danger");
+    private static final byte[] HEALTH_WIDTH = bytes("\" role=\"progressbar\" style=\"width: ");
+    private static final byte[] HEALTH_VALUE = bytes("%\" aria-valuenow=\"");
+    private static final byte[] HEALTH_TEXT = bytes("\" aria-valuemin=\"0\" aria-valuemax=\"100\">Health ");
+    private static final byte[] AFTER_HEALTH = bytes("%</div></div></div>\n            </div>\n");
+    private static final byte[] WIN = bytes(
+            "            <div class=\"row\">\n"
+            + "                <div class=\"col text-center pb-4\"><h1><span class=\"badge badge-success w-75\">YOU WIN</span></h1></div>\n"
+            + "            </div>\n");
+    private static final byte[] LOSE = bytes(
+            "            <div class=\"row\">\n"
+            + "                <div class=\"col text-center pb-4\"><h1><span class=\"badge badge-danger w-75\">YOU LOSE</span></h1></div>\n"
+            + "            </div>\n");
+    private static final byte[] BEFORE_UP = bytes(
+            "            <div class=\"row\">\n"
+            + "                <div class=\"col-2\"></div>\n"
+            + "                <div class=\"col text-center pb-4\">");
+    private static final byte[] BEFORE_LEFT = bytes(
+            "</div>\n"
+            + "                <div class=\"col-2\"></div>\n"
+            + "            </div>\n"
+            + "            <div class=\"row\">\n"
+            + "                <div class=\"col-2 my-auto text-right\">");
+    private static final byte[] BEFORE_BOARD = bytes(
+            "</div>\n"
+            + "                <div class=\"col\">\n"
+            + "                    <div class=\"container text-center bg-secondary\">\n");
+    private static final byte[] ROW_START = bytes("                        <div class=\"row\">\n");
+    private static final byte[] ROW_END = bytes("                        </div>\n");
+    private static final byte[] CELL_START = bytes("                            <div class=\"col mt-1 ml-1");
+    private static final byte[] CELL_BOTTOM = bytes(" mb-1");
+    private static final byte[] CELL_RIGHT = bytes(" mr-1");
+    private static final byte[] CELL_ID = bytes(" bg-light\" id=\"cell-");
+    private static final byte[][] TILES = new byte[31][];
+    private static final byte[] BEFORE_RIGHT = bytes(
+            "                    </div>\n"
+            + "                </div>\n"
+            + "                <div class=\"col-2 my-auto\">");
+    private static final byte[] BEFORE_DOWN = bytes(
+            "</div>\n"
+            + "            </div>\n"
+            + "            <div class=\"row\">\n"
+            + "                <div class=\"col-2\"></div>\n"
+            + "                <div class=\"col text-center pt-4\">");
+    private static final byte[] BEFORE_UNDO = bytes(
+            "</div>\n"
+            + "                <div class=\"col-2\"></div>\n"
+            + "            </div>\n"
+            + "            <div class=\"row\">\n"
+            + "                <div class=\"col text-center pt-4\">");
+    private static final byte[] BEFORE_REDO = bytes("</div>\n                <div class=\"col text-center pt-4\">");
+    private static final byte[] BEFORE_SIZE = bytes(
+            "</div>\n"
+            + "            </div>\n"
+            + "            <div class=\"row\">\n"
+            + "                <div class=\"col text-center pt-4\"><a role=\"button\" class=\"btn btn-danger w-75\" href=\"Game?action=new&size=");
+    private static final byte[] BEFORE_REFRESH = bytes(
+            "\">New Game</a></div>\n"
+            + "                <div class=\"col text-center pt-4\"><a role=\"button\" class=\"btn btn-info w-75\" href=\"Game?id=");
+    private static final byte[] TAIL = bytes(
+            "\">Refresh</a></div>\n"
+            + "            </div>\n"
+            + "        </div>\n"
+            + "        <div class=\"col-4\"></div>\n"
+            + "    </div>\n"
+            + "</body>\n"
+            + "</html>\n");
+
+    private static final byte[] MOVE_ENABLED = bytes("<a role=\"button\" class=\"btn btn-secondary\" href=\"Game?id=");
+    private static final byte[][] MOVE_ENABLED_END = new byte[Direction.values().length][];
+    private static final byte[][] MOVE_DISABLED = new byte[Direction.values().length][];
+    private static final byte[] HISTORY_ENABLED = bytes("<a role=\"button\" class=\"btn btn-outline-secondary w-75\" href=\"Game?id=");
+    private static final byte[] UNDO_ENABLED_END = bytes("&action=undo\" data-action=\"undo\">Undo</a>");
+    private static final byte[] UNDO_DISABLED = bytes("<a role=\"button\" class=\"btn btn-outline-secondary w-75 disabled\" aria-disabled=\"true\" data-action=\"undo\">Undo</a>");
+    private static final byte[] REDO_ENABLED_END = bytes("&action=redo\" data-action=\"redo\">Redo</a>");
+    private static final byte[] REDO_DISABLED = bytes("<a role=\"button\" class=\"btn btn-outline-secondary w-75 disabled\" aria-disabled=\"true\" data-action=\"redo\">Redo</a>");
+
+    static {
+        for (int exponent = 0; exponent < TILES.length; exponent++) {
+            TILES[exponent] = bytes("\">" + (exponent == 0 ? 0 : 1 << exponent) + "</div>\n");
+        }
+        for (Direction direction : Direction.values()) {
+            String icon = "<i class=\"bi-arrow-" + direction + "\"></i></a>";
+            MOVE_ENABLED_END[direction.ordinal()] = bytes("&action=" + direction + "\" data-action=\"" + direction + "\">" + icon);
+            MOVE_DISABLED[direction.ordinal()] = bytes("<a role=\"button\" class=\"btn btn-secondary disabled\" aria-disabled=\"true\" data-action=\""
+                    + direction + "\">" + icon);
+        }
+    }
+
+    private GamePage() {
+    }
+
+    /** Markup up to the game id, linking the assets under the URLs {@code url} gives for their paths. */
+    static byte[] head(UnaryOperator<String> url) {
+        return bytes("<!DOCTYPE html>\n"
+                + "<html lang=\"en\">\n"
+                + "<head>\n"
+                + "    <meta charset=\"UTF-8\">\n"
+                + "    <title>2048</title>\n"
+                + "    <link href=\"" + url.apply("css/bootstrap.min.css") + "\" rel=\"stylesheet\"/>\n"
+                + "    <link href=\"" + url.apply("icons/bootstrap-icons.css") + "\" rel=\"stylesheet\"/>\n"
+                + "    <script src=\"" + url.apply("js/bootstrap.min.js") + "\"></script>\n"
+                + "    <script src=\"" + url.apply("js/game.js") + "\" defer></script>\n"
+                + "</head>\n"
+                + "<body data-game=\"");
+    }
+
+    /**
+     * Renders the page of the game into the buffer, which is cleared first. The
+     * page links the {@link StaticAssets#versioned versioned} URLs of the assets,
+     * or the plain paths if {@code assets} is null.
+     */
+    public static void render(UUID id, Game game, StaticAssets assets, Buffer out) {
+        int size = game.getSize();
+        out.clear();
+        out.put(assets != null ? assets.getPageHead() : HEAD).put(id).put(BEFORE_SCORE).put(game.getScore()).put(BEFORE_HEALTH);
+
+        int health = (int) Math.round(100 * BoardEvaluator.evaluate(game).getHealth());
+        out.put(health >= 60 ? SUCCESS : health >= 30 ? WARNING : DANGER)
+                .put(HEALTH_WIDTH).put(health).put(HEALTH_VALUE).put(health).put(HEALTH_TEXT).put(health).put(AFTER_HEALTH);
+        if (game.isOver()) {
+            out.put(game.isWon() ? WIN : LOSE);
+        }
+
+        out.put(BEFORE_UP);
+        moveButton(id, game, Direction.up, out);
+        out.put(BEFORE_LEFT);
+        moveButton(id, game, Direction.left, out);
+        out.put(BEFORE_BOARD);
+        for (int row = 0; row < size; row++) {
+            out.put(ROW_START);
+            for (int col = 0; col < size; col++) {
+                out.put(CELL_START);
+                if (row == size - 1) out.put(CELL_BOTTOM);
+                if (col == size - 1) out.put(CELL_RIGHT);
+                int value = game.getValueAt(row, col);
+                out.put(CELL_ID).put(row * size + col).put(TILES[value == 0 ? 0 : Integer.numberOfTrailingZeros(value)]);
+            }
+            out.put(ROW_END);
+        }
+        out.put(BEFORE_RIGHT);
+        moveButton(id, game, Direction.right, out);
+        out.put(BEFORE_DOWN);
+        moveButton(id, game, Direction.down, out);
+
+        out.put(BEFORE_UNDO);
+        if (game.canUndo()) {
+            out.put(HISTORY_ENABLED).put(id).put(UNDO_ENABLED_END);
+        } else {
+            out.put(UNDO_DISABLED);
+        }
+        out.put(BEFORE_REDO);
+        if (game.canRedo()) {
+            out.put(HISTORY_ENABLED).put(id).put(REDO_ENABLED_END);
+        } else {
+            out.put(REDO_DISABLED);
+        }
+        out.put(BEFORE_SIZE).put(size).put(BEFORE_REFRESH).put(id).put(TAIL);
+    }
+
+    /**
+     * Strong validator of the page: a hash of the id, the packed board, score
+     * and status and the undo and redo buttons, everything the page shows.
+     */
+    public static String etag(UUID id, Game game) {
+        long[] state = new long[game.stateLength()];
+        game.saveState(state, 0);
+        long hash = SplitMixRandom.mix(id.getMostSignificantBits()) ^ id.getLeastSignificantBits();
+        // the last word is the state of the random source, which the page does not show
+        for (int i = 0; i < state.length - 1; i++) {
+            hash = SplitMixRandom.mix(hash ^ state[i]);
+        }
+        hash = SplitMixRandom.mix(hash ^ (game.canUndo() ? 1 : 0) ^ (game.canRedo() ? 2 : 0));
+        String hex = Long.toHexString(hash);
+        return "\"" + "0000000000000000".substring(hex.length()) + hex + "\"";
+    }
+
+    /** Whether an {@code If-None-Match} header names the tag. */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        return ifNoneMatch != null && (ifNoneMatch.trim().equals("*") || ifNoneMatch.contains(etag));
+    }
+
+    private static void moveButton(UUID id, Game game, Direction direction, Buffer out) {
+        if (game.isOver() || !game.isLegal(direction)) {
+            out.put(MOVE_DISABLED[direction.ordinal()]);
+        } else {
+            out.put(MOVE_ENABLED).put(id).put(MOVE_ENABLED_END[direction.ordinal()]);
+        }
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** Growable byte array that is reused for every page a thread renders. */
+    public static final class Buffer {
+        private static final byte[] HEX = bytes("0123456789abcdef");
+
+        private byte[] bytes = new byte[8192];
+        private int length;
+
+        public int length() {
+            return length;
+        }
+
+        public void clear() {
+            length = 0;
+        }
+
+        public void writeTo(OutputStream out) throws IOException {
+            out.write(bytes, 0, length);
+        }
+
+        public byte[] toByteArray() {
+            return Arrays.copyOf(bytes, length);
+        }
+
+        Buffer put(byte[] chunk) {
+            ensure(chunk.length);
+            System.arraycopy(chunk, 0, bytes, length, chunk.length);
+            length += chunk.length;
+            return this;
+        }
+
+        Buffer put(int value) {
+            ensure(11);
+            if (value < 0) {
+                bytes[length++] = '-';
+                value = -value;
+            }
+            int digits = 1;
+            for (int rest = value / 10; rest != 0; rest /= 10) {
+                digits++;
+            }
+            for (int i = length + digits - 1; i >= length; i--) {
+                bytes[i] = (byte) ('0' + value % 10);
+                value /= 10;
+            }
+            length += digits;
+            return this;
+        }
+
+        /** Writes the id in the form of {@link UUID#toString()}. */
+        Buffer put(UUID id) {
+            ensure(36);
+            hex(id.getMostSignificantBits() >>> 32, 8);
+            bytes[length++] = '-';
+            hex(id.getMostSignificantBits() >>> 16, 4);
+            bytes[length++] = '-';
+            hex(id.getMostSignificantBits(), 4);
+            bytes[length++] = '-';
+            hex(id.getLeastSignificantBits() >>> 48, 4);
+            bytes[length++] = '-';
+            hex(id.getLeastSignificantBits(), 12);
+            return this;
+        }
+
+        private void hex(long value, int digits) {
+            for (int i = length + digits - 1; i >= length; i--) {
+                bytes[i] = HEX[(int) value & 0xF];
+                value >>>= 4;
+            }
+            length += digits;
+        }
+
+        private void ensure(int extra) {
+            if (length + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(2 * bytes.length, length + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package spw4.game2048;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Games of all sessions as seen by the servlets: the {@link SessionRegistry}
+ * with its {@link SessionStore} and the {@link SessionJournal} every change
+ * goes through, and the {@link Spectators} every change is published to. One
+ * instance is shared by all servlets of the application, see {@link SessionListener}.
+ */
+public final class GameSessions implements Closeable {
+    public static final String ATTRIBUTE = GameSessions.class.getName();
+    public static final int DEFAULT_SIZE = 4;
+    public static final int MAX_SIZE = 16;
+    public static final int HISTORY_DEPTH = 32;
+    public static final int SPECTATOR_THREADS = 4;
+    public static final int MAX_BATCH = 1024;
+
+    private static final int MIN_SEQUENCES = 1 << 16;
+
+    private final SessionStore store;
+    private final SessionJournal journal;
+    private final SessionRegistry registry;
+    private final Spectators spectators;
+    private final ConcurrentHashMap<UUID, Long> sequences = new ConcurrentHashMap<>();
+    private volatile int sequencePurgeSize = MIN_SEQUENCES;
+
+    public GameSessions(SessionStore store, SessionJournal journal, SessionRegistry registry) {
+        this(store, journal, registry, SPECTATOR_THREADS);
+    }
+
+    public GameSessions(SessionStore store, SessionJournal journal, SessionRegistry registry, int spectatorThreads) {
+        this.store = store;
+        this.journal = journal;
+        this.registry = registry;
+        this.spectators = new Spectators(this, spectatorThreads, Spectators.DEFAULT_CAPACITY, Spectators.DEFAULT_MAX_SUBSCRIBERS);
+    }
+
+    /** Starts a new seeded game, returns once it is journaled. */
+    public UUID create(int size) throws IOException {
+        if (size < 2 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("Error: " + size + " is not a valid size!");
+        }
+        MoveLog log = new MoveLog(size, ThreadLocalRandom.current().nextLong());
+        Game game = log.newGame();
+        game.enableHistory(HISTORY_DEPTH);
+        UUID id = registry.create(game);
+        journal.create(id, game);
+        journal.sync();
+        return id;
+    }
+
+    /**
+     * Runs the action on the game under its session lock and returns once all
+     * changes are journaled, or returns null if there is no such game. The
+     * action changes the game only through {@link #act(UUID, Game, String)}.
+     */
+    public <T> T update(UUID id, Function<Game, T> action) throws IOException {
+        T result = registry.update(id, action);
+        journal.sync();
+        return result;
+    }
+
+    public <T> T read(UUID id, Function<Game, T> action) {
+        return registry.read(id, action);
+    }
+
+    /**
+     * Applies one of the actions {@code up}, {@code down}, {@code left},
+     * {@code right}, {@code undo} and {@code redo}, journals it if it took
+     * effect and publishes the change to the spectators of the game. Returns
+     * the result of a move, null for anything else.
+     */
+    public MoveResult act(UUID id, Game game, String action) {
+        Spectators.Feed feed = spectators.feed(id);
+        byte[] before = feed != null ? DeltaEncoder.capture(game) : null;
+        MoveResult result = null;
+        boolean changed;
+        if ("undo".equals(action)) {
+            changed = game.undo();
+            if (changed) journal.undo(id);
+        } else if ("redo".equals(action)) {
+            changed = game.redo();
+            if (changed) journal.redo(id);
+        } else {
+            Direction direction = parseDirection(action);
+            if (direction == null || game.isOver()) {
+                return null;
+            }
+            result = game.move(direction);
+            changed = result.isMoved();
+            if (changed) journal.move(id, direction);
+        }
+        if (changed && feed != null) {
+            feed.publish(DeltaEncoder.toJson(id, game, before, result));
+        }
+        return result;
+    }
+
+    /**
+     * Applies a batch of moves in order, must be called under the session lock
+     * like {@link #act(UUID, Game, String)}. A batch carrying a sequence number
+     * not above the last one applied to the game is a retry and is skipped,
+     * null is returned; a negative sequence number is never skipped. Returns
+     * whether each move changed the board.
+     */
+    public boolean[] actAll(UUID id, Game game, Direction[] moves, long sequence) {
+        if (moves.length > MAX_BATCH) {
+            throw new IllegalArgumentException("Error: " + moves.length + " is not a valid batch size!");
+        }
+        if (sequence >= 0) {
+            Long last = sequences.get(id);
+            if (last != null && sequence <= last) {
+                return null;
+            }
+            sequences.put(id, sequence);
+            if (sequences.size() > sequencePurgeSize) {
+                purgeSequences();
+            }
+        }
+        boolean[] moved = new boolean[moves.length];
+        for (int i = 0; i < moves.length; i++) {
+            MoveResult result = act(id, game, moves[i].name());
+            moved[i] = result != null && result.isMoved();
+        }
+        return moved;
+    }
+
+    /** Forgets the sequence numbers of games that expired. */
+    private synchronized void purgeSequences() {
+        if (sequences.size() > sequencePurgeSize) {
+            sequences.keySet().removeIf(id -> store.getLastAccess(id) < 0);
+            sequencePurgeSize = Math.max(MIN_SEQUENCES, 2 * sequences.size());
+        }
+    }
+
+    public Spectators getSpectators() {
+        return spectators;
+    }
+
+    /** Parses a batch of moves written as {@code U}, {@code D}, {@code L} and {@code R}. */
+    public static Direction[] parseMoves(String moves) {
+        if (moves == null || moves.length() > GameSessions.MAX_BATCH) {
+            throw new IllegalArgumentException("Error: " + moves + " is not a valid batch!");
+        }
+        Direction[] directions = new Direction[moves.length()];
+        for (int i = 0; i < directions.length; i++) {
+            switch (Character.toUpperCase(moves.charAt(i))) {
+                case 'U':
+                    directions[i] = Direction.up;
+                    break;
+                case 'D':
+                    directions[i] = Direction.down;
+                    break;
+                case 'L':
+                    directions[i] = Direction.left;
+                    break;
+                case 'R':
+                    directions[i] = Direction.right;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Error: " + moves.charAt(i) + " is not a valid move!");
+            }
+        }
+        return directions;
+    }
+
+    private static Direction parseDirection(String action) {
+        for (Direction direction : Direction.values()) {
+            if (direction.name().equals(action)) {
+                return direction;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        spectators.close();
+        try {
+            journal.close();
+        }
+        finally {
+            store.close();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package spw4.game2048;
+
+import java.util.SplittableRandom;
+
+/** Takes the move with the highest immediate score, ties go to the move leaving more empty cells. */
+public class GreedyStrategy implements Strategy {
+    private final MoveResult probe = new MoveResult();
+
+    @Override
+    public Direction chooseMove(Game game, SplittableRandom random) {
+        Direction best = null;
+        long bestValue = -1;
+        for (Direction direction : Direction.values()) {
+            if (!game.isLegal(direction)) {
+                continue;
+            }
+            Board board = game.getBoard().copy();
+            if (board.move(direction, probe)) {
+                long value = (long) probe.getScoreDelta() * 64 + board.countEmpty();
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = direction;
+                }
+            }
+        }
+        return best != null ? best : Direction.down;
+    }
+}
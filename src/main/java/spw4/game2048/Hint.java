@@ -0,0 +1,24 @@
+package spw4.game2048;
+
+public final class Hint {
+    private final Direction direction;
+    private final double expectedValue;
+
+    public Hint(Direction direction, double expectedValue) {
+        this.direction = direction;
+        this.expectedValue = expectedValue;
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    public double getExpectedValue() {
+        return expectedValue;
+    }
+
+    @Override
+    public String toString() {
+        return direction + " (" + expectedValue + ")";
+    }
+}
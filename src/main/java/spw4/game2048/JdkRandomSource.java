@@ -0,0 +1,49 @@
+package spw4.game2048;
+
+import java.util.Random;
+
+/** Adapts a {@link Random}; its seed and state are hidden, so games using it cannot be rewound or replayed. */
+final class JdkRandomSource implements RandomSource {
+    private final Random random;
+
+    JdkRandomSource(Random random) {
+        this.random = random;
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+
+    @Override
+    public long nextLong() {
+        return random.nextLong();
+    }
+
+    @Override
+    public long getSeed() {
+        throw new UnsupportedOperationException("Error: java.util.Random does not expose its seed!");
+    }
+
+    @Override
+    public long getState() {
+        throw new UnsupportedOperationException("Error: java.util.Random does not expose its state!");
+    }
+
+    @Override
+    public void setState(long state) {
+        throw new UnsupportedOperationException("Error: java.util.Random does not expose its state!");
+    }
+
+    @Override
+    public void jump(long steps) {
+        for (long i = 0; i < steps; i++) {
+            random.nextLong();
+        }
+    }
+
+    @Override
+    public RandomSource split() {
+        return new JdkRandomSource(new Random(random.nextLong()));
+    }
+}
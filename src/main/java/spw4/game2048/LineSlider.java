@@ -0,0 +1,69 @@
+package spw4.game2048;
+
+/**
+ * Slides a single line of tile exponents towards index 0 exactly like the
+ * loops in {@link ArrayBoard} do. Shared by the packed boards, either to
+ * build their row tables or as their per-row kernel.
+ */
+final class LineSlider {
+    final int[] line;
+    final int[] destinations;
+    int score;
+    int merges;
+    boolean won;
+    private final int maxExponent;
+
+    LineSlider(int length, int maxExponent) {
+        line = new int[length];
+        destinations = new int[length];
+        this.maxExponent = maxExponent;
+    }
+
+    void slideLeft() {
+        int treatedFields = 0;
+        score = 0;
+        merges = 0;
+        won = false;
+        destinations[0] = 0;
+        for (int col = 1; col < line.length; col++) {
+            destinations[col] = col;
+            if (line[col] != 0) {
+                int curNumber = line[col];
+                line[col] = 0;
+                for (int i = col - 1; i >= treatedFields; i--) {
+                    if (i == treatedFields && line[i] == 0) {
+                        line[i] = curNumber;
+                        destinations[col] = i;
+                        break;
+                    }
+                    if (line[i] != 0) {
+                        if (line[i] == curNumber && curNumber < maxExponent) {
+                            line[i]++;
+                            score += 1 << line[i];
+                            merges++;
+                            won |= line[i] == 11;
+                            treatedFields++;
+                            destinations[col] = i;
+                        }
+                        else {
+                            line[i + 1] = curNumber;
+                            destinations[col] = i + 1;
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    static int toExponent(int value, int maxExponent) {
+        if (value == 0) {
+            return 0;
+        }
+        int exponent = Integer.numberOfTrailingZeros(value);
+        if (value != 1 << exponent || exponent == 0 || exponent > maxExponent) {
+            throw new IllegalArgumentException("Error: " + value + " is not a valid tile!");
+        }
+        return exponent;
+    }
+}
@@ -0,0 +1,261 @@
+package spw4.game2048;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * Monte Carlo Tree Search over packed 4x4 boards. Decision nodes pick a move
+ * by UCT, chance nodes sample the spawn like {@link Game} does (a 4 with
+ * probability 0.1, a 2 otherwise) and leaves are scored by random playouts.
+ * All workers grow one shared tree; a worker passing an edge adds a virtual
+ * loss to it so the others spread out over the tree until the playout is
+ * backed up.
+ */
+public class MctsPlayer {
+    public static final double DEFAULT_EXPLORATION = 1.0;
+    public static final int DEFAULT_ROLLOUT_LIMIT = 1000;
+
+    private static final int VIRTUAL_LOSS = 3;
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final ForkJoinPool pool;
+    private final int workers;
+    private final double exploration;
+    private final int rolloutLimit;
+    private final SplittableRandom seeds;
+
+    public MctsPlayer() {
+        this(ForkJoinPool.commonPool(), Runtime.getRuntime().availableProcessors(),
+                DEFAULT_EXPLORATION, DEFAULT_ROLLOUT_LIMIT, new SplittableRandom());
+    }
+
+    public MctsPlayer(ForkJoinPool pool, int workers, double exploration, int rolloutLimit, SplittableRandom seeds) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Error: " + workers + " is not a valid number of workers!");
+        }
+        this.pool = pool;
+        this.workers = workers;
+        this.exploration = exploration;
+        this.rolloutLimit = rolloutLimit;
+        this.seeds = seeds;
+    }
+
+    /**
+     * Searches for the given time and returns the most visited move with its
+     * mean playout score, or null if no move changes the board.
+     */
+    public Hint findBestMove(Game game, long millis) {
+        return findBestMove(BitBoard.pack(game.getBoard()), millis);
+    }
+
+    public Hint findBestMove(long cells, long millis) {
+        Search search = new Search(cells, System.nanoTime() + millis * 1_000_000L);
+        if (search.root.legalMoves == 0) {
+            return null;
+        }
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            SplittableRandom random;
+            synchronized (seeds) {
+                random = seeds.split();
+            }
+            tasks.add(pool.submit(new Worker(search, random)));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        return search.best();
+    }
+
+    /** Score of a board as if every tile had been built from 2s. */
+    static long boardScore(long cells) {
+        long score = 0;
+        for (; cells != 0; cells >>>= 4) {
+            int exponent = (int) cells & 0xF;
+            if (exponent > 1) {
+                score += (long) (exponent - 1) << exponent;
+            }
+        }
+        return score;
+    }
+
+    static long spawn(long cells, SplittableRandom random) {
+        long empty = BitBoard.emptyCells(cells);
+        for (int i = random.nextInt(Long.bitCount(empty)); i > 0; i--) {
+            empty &= empty - 1;
+        }
+        long tile = Long.lowestOneBit(empty);
+        return cells | (random.nextInt(10) == 0 ? tile << 1 : tile);
+    }
+
+    private long rollout(long cells, SplittableRandom random) {
+        for (int step = 0; step < rolloutLimit; step++) {
+            int moves = BitBoard.legalMoves(cells);
+            if (moves == 0) {
+                break;
+            }
+            for (int i = random.nextInt(Integer.bitCount(moves)); i > 0; i--) {
+                moves &= moves - 1;
+            }
+            cells = spawn(BitBoard.move(cells, DIRECTIONS[Integer.numberOfTrailingZeros(moves)]), random);
+        }
+        return boardScore(cells);
+    }
+
+    private final class Search {
+        final DecisionNode root;
+        final long deadline;
+        final AtomicLong maxReward = new AtomicLong(1);
+
+        Search(long cells, long deadline) {
+            this.root = new DecisionNode(cells);
+            this.deadline = deadline;
+        }
+
+        Hint best() {
+            ChanceNode best = null;
+            int bestMove = -1;
+            for (int i = 0; i < DIRECTIONS.length; i++) {
+                ChanceNode child = root.children.get(i);
+                if (child != null && (best == null || child.visits.get() > best.visits.get())) {
+                    best = child;
+                    bestMove = i;
+                }
+            }
+            if (best == null) {
+                int move = Integer.numberOfTrailingZeros(root.legalMoves);
+                return new Hint(DIRECTIONS[move], 0);
+            }
+            return new Hint(DIRECTIONS[bestMove], best.mean());
+        }
+
+        void updateMaxReward(long reward) {
+            long max = maxReward.get();
+            while (reward > max && !maxReward.compareAndSet(max, reward)) {
+                max = maxReward.get();
+            }
+        }
+    }
+
+    private final class Worker implements Runnable {
+        private final Search search;
+        private final SplittableRandom random;
+        private final List<Node> path = new ArrayList<>();
+
+        Worker(Search search, SplittableRandom random) {
+            this.search = search;
+            this.random = random;
+        }
+
+        @Override
+        public void run() {
+            do {
+                iterate();
+            } while (System.nanoTime() < search.deadline);
+        }
+
+        private void iterate() {
+            path.clear();
+            DecisionNode node = search.root;
+            node.visits.addAndGet(VIRTUAL_LOSS);
+            path.add(node);
+            while (node.legalMoves != 0 && node.visits.get() > VIRTUAL_LOSS) {
+                ChanceNode chance = select(node);
+                chance.visits.addAndGet(VIRTUAL_LOSS);
+                path.add(chance);
+                node = chance.sample(random);
+                node.visits.addAndGet(VIRTUAL_LOSS);
+                path.add(node);
+            }
+            long reward = node.legalMoves == 0 ? boardScore(node.cells) : rollout(node.cells, random);
+            search.updateMaxReward(reward);
+            for (Node visited : path) {
+                visited.visits.addAndGet(1 - VIRTUAL_LOSS);
+                visited.reward.add(reward);
+            }
+        }
+
+        private ChanceNode select(DecisionNode node) {
+            double scale = search.maxReward.get();
+            double logVisits = Math.log(node.visits.get());
+            ChanceNode best = null;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < DIRECTIONS.length; i++) {
+                if ((node.legalMoves & DIRECTIONS[i].mask()) == 0) {
+                    continue;
+                }
+                ChanceNode child = node.child(i);
+                long visits = child.visits.get();
+                if (visits == 0) {
+                    return child;
+                }
+                double value = child.reward.sum() / visits / scale + exploration * Math.sqrt(logVisits / visits);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = child;
+                }
+            }
+            return best;
+        }
+    }
+
+    private static class Node {
+        final long cells;
+        final AtomicLong visits = new AtomicLong();
+        final DoubleAdder reward = new DoubleAdder();
+
+        Node(long cells) {
+            this.cells = cells;
+        }
+
+        double mean() {
+            long count = visits.get();
+            return count <= 0 ? 0 : reward.sum() / count;
+        }
+    }
+
+    private static final class DecisionNode extends Node {
+        final int legalMoves;
+        final AtomicReferenceArray<ChanceNode> children = new AtomicReferenceArray<>(DIRECTIONS.length);
+
+        DecisionNode(long cells) {
+            super(cells);
+            legalMoves = BitBoard.legalMoves(cells);
+        }
+
+        ChanceNode child(int move) {
+            ChanceNode child = children.get(move);
+            if (child == null) {
+                children.compareAndSet(move, null, new ChanceNode(BitBoard.move(cells, DIRECTIONS[move])));
+                child = children.get(move);
+            }
+            return child;
+        }
+    }
+
+    private static final class ChanceNode extends Node {
+        final AtomicReferenceArray<DecisionNode> outcomes = new AtomicReferenceArray<>(2 * 16);
+
+        ChanceNode(long cells) {
+            super(cells);
+        }
+
+        DecisionNode sample(SplittableRandom random) {
+            long spawned = spawn(cells, random);
+            int bit = Long.numberOfTrailingZeros(spawned ^ cells);
+            int index = (bit >>> 2) * 2 + (bit & 1);
+            DecisionNode outcome = outcomes.get(index);
+            if (outcome == null) {
+                outcomes.compareAndSet(index, null, new DecisionNode(spawned));
+                outcome = outcomes.get(index);
+            }
+            return outcome;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package spw4.game2048;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A game recorded as its size, the seed of its {@link RandomSource} and every
+ * move that changed the board, packed at 2 bits per {@link Direction}. Together
+ * with the seed this is enough for a {@link Replayer} to rebuild every state of
+ * the game. Undone moves are kept behind the end of the log until a new move
+ * overwrites them, so they can be redone.
+ */
+public final class MoveLog {
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final int MOVES_PER_WORD = 32;
+
+    private final int size;
+    private final long seed;
+    private long[] words;
+    private int length;
+    private int written;
+
+    public MoveLog(int size, long seed) {
+        this(size, seed, new long[1], 0);
+    }
+
+    private MoveLog(int size, long seed, long[] words, int length) {
+        this.size = size;
+        this.seed = seed;
+        this.words = words;
+        this.length = length;
+        this.written = length;
+    }
+
+    /** Starts a new game from the seed that records its moves into this log. */
+    public Game newGame() {
+        if (length != 0) {
+            throw new IllegalStateException("Error: log already holds " + length + " moves!");
+        }
+        Game game = new Game(size, RandomSource.create(seed));
+        game.initialize();
+        game.setMoveLog(this);
+        return game;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public Direction get(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Error: " + index + " is not a valid move index!");
+        }
+        return DIRECTIONS[(int) (words[index / MOVES_PER_WORD] >>> (2 * (index % MOVES_PER_WORD))) & 3];
+    }
+
+    public void append(Direction direction) {
+        if (length / MOVES_PER_WORD == words.length) {
+            words = Arrays.copyOf(words, 2 * words.length);
+        }
+        int shift = 2 * (length % MOVES_PER_WORD);
+        long word = words[length / MOVES_PER_WORD] & ~(3L << shift);
+        words[length / MOVES_PER_WORD] = word | (long) direction.ordinal() << shift;
+        length++;
+        written = length;
+    }
+
+    boolean undoLast() {
+        if (length == 0) {
+            return false;
+        }
+        length--;
+        return true;
+    }
+
+    boolean redoLast() {
+        if (length == written) {
+            return false;
+        }
+        length++;
+        return true;
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(size);
+        out.writeLong(seed);
+        out.writeInt(length);
+        for (int i = 0; i < (length + MOVES_PER_WORD - 1) / MOVES_PER_WORD; i++) {
+            out.writeLong(words[i]);
+        }
+    }
+
+    public static MoveLog readFrom(DataInput in) throws IOException {
+        int size = in.readInt();
+        long seed = in.readLong();
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Error: " + length + " is not a valid log length!");
+        }
+        long[] words = new long[Math.max(1, (length + MOVES_PER_WORD - 1) / MOVES_PER_WORD)];
+        for (int i = 0; i < (length + MOVES_PER_WORD - 1) / MOVES_PER_WORD; i++) {
+            words[i] = in.readLong();
+        }
+        return new MoveLog(size, seed, words, length);
+    }
+}
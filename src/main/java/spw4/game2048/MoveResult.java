@@ -0,0 +1,95 @@
+package spw4.game2048;
+
+import java.util.Arrays;
+
+public final class MoveResult {
+    private boolean moved;
+    private int scoreDelta;
+    private int merges;
+    private boolean won;
+    private int spawnedValue;
+    private int spawnedCell = -1;
+    private int size;
+    private short[] destinations = new short[0];
+
+    public boolean isMoved() {
+        return moved;
+    }
+
+    public int getScoreDelta() {
+        return scoreDelta;
+    }
+
+    public int getMerges() {
+        return merges;
+    }
+
+    public boolean isWon() {
+        return won;
+    }
+
+    public int getSpawnedValue() {
+        return spawnedValue;
+    }
+
+    public int getSpawnedRow() {
+        return spawnedCell < 0 ? -1 : spawnedCell / size;
+    }
+
+    public int getSpawnedCol() {
+        return spawnedCell < 0 ? -1 : spawnedCell % size;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the cell index ({@code row * size + col}) the tile at the given
+     * position slid or merged into, or -1 if the cell was empty before the move.
+     */
+    public int getDestination(int row, int col) {
+        return destinations[row * size + col];
+    }
+
+    void reset(int size) {
+        moved = false;
+        scoreDelta = 0;
+        merges = 0;
+        won = false;
+        spawnedValue = 0;
+        spawnedCell = -1;
+        if (this.size != size) {
+            this.size = size;
+            destinations = new short[size * size];
+        }
+        Arrays.fill(destinations, (short) -1);
+    }
+
+    void setMoved(boolean moved) {
+        this.moved = moved;
+    }
+
+    void setDestination(int source, int destination) {
+        destinations[source] = (short) destination;
+    }
+
+    void setSpawn(int cell, int value) {
+        spawnedCell = cell;
+        spawnedValue = value;
+    }
+
+    void addMerge(int value) {
+        scoreDelta += value;
+        merges++;
+        if (value == 2048) {
+            won = true;
+        }
+    }
+
+    void add(int scoreDelta, int merges, boolean won) {
+        this.scoreDelta += scoreDelta;
+        this.merges += merges;
+        this.won |= won;
+    }
+}
@@ -0,0 +1,43 @@
+package spw4.game2048;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Random numbers for the spawns of one {@link Game}. Implementations are not
+ * thread-safe; every game owns its source. The seed and the current state can
+ * be read so a game can be recorded, replayed and rewound, {@link #split()}
+ * and {@link #jump(long)} give independent streams for parallel runs.
+ */
+public interface RandomSource {
+    /** Source with a fresh seed. */
+    static RandomSource create() {
+        return create(ThreadLocalRandom.current().nextLong());
+    }
+
+    static RandomSource create(long seed) {
+        return new SplitMixRandom(seed);
+    }
+
+    /** Draws from the given {@link Random}, which has neither a readable seed nor state. */
+    static RandomSource of(Random random) {
+        return new JdkRandomSource(random);
+    }
+
+    /** Returns a number in {@code [0, bound)}. */
+    int nextInt(int bound);
+
+    long nextLong();
+
+    long getSeed();
+
+    long getState();
+
+    void setState(long state);
+
+    /** Skips the next {@code steps} values of {@link #nextLong()}. */
+    void jump(long steps);
+
+    /** Returns a new source seeded from this one, whose stream does not depend on later draws here. */
+    RandomSource split();
+}
@@ -0,0 +1,12 @@
+package spw4.game2048;
+
+import java.util.SplittableRandom;
+
+public class RandomStrategy implements Strategy {
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    @Override
+    public Direction chooseMove(Game game, SplittableRandom random) {
+        return DIRECTIONS[random.nextInt(DIRECTIONS.length)];
+    }
+}
@@ -0,0 +1,77 @@
+package spw4.game2048;
+
+import java.util.Arrays;
+
+/**
+ * Rebuilds the states of a recorded {@link MoveLog}. Replaying forward only
+ * applies the logged moves, every {@code interval} moves the packed state of
+ * the game (including its random generator) is kept as a checkpoint, so
+ * seeking backwards or far ahead restarts from the nearest checkpoint instead
+ * of from the first move.
+ */
+public final class Replayer {
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 1024;
+
+    private final MoveLog log;
+    private final int interval;
+    private final Game game;
+    private final int stride;
+    private long[] checkpoints;
+    private int checkpointCount;
+    private int position;
+
+    public Replayer(MoveLog log) {
+        this(log, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    public Replayer(MoveLog log, int interval) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Error: " + interval + " is not a valid checkpoint interval!");
+        }
+        this.log = log;
+        this.interval = interval;
+        game = new Game(log.getSize(), RandomSource.create(log.getSeed()));
+        game.initialize();
+        stride = game.stateLength();
+        checkpoints = new long[(log.length() / interval + 1) * stride];
+        game.saveState(checkpoints, 0);
+        checkpointCount = 1;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * Returns the game as it was after the first {@code index} moves of the log.
+     * The game belongs to the replayer and changes with the next seek.
+     */
+    public Game seek(int index) {
+        if (index < 0 || index > log.length()) {
+            throw new IndexOutOfBoundsException("Error: " + index + " is not a valid move index!");
+        }
+        int checkpoint = Math.min(index / interval, checkpointCount - 1);
+        if (index < position || position < checkpoint * interval) {
+            game.restoreState(checkpoints, checkpoint * stride);
+            position = checkpoint * interval;
+        }
+        while (position < index) {
+            step();
+        }
+        return game;
+    }
+
+    private void step() {
+        if (!game.move(log.get(position)).isMoved()) {
+            throw new IllegalStateException("Error: move " + position + " does not change the board!");
+        }
+        position++;
+        if (position % interval == 0 && position / interval == checkpointCount) {
+            if ((checkpointCount + 1) * stride > checkpoints.length) {
+                checkpoints = Arrays.copyOf(checkpoints, 2 * checkpoints.length);
+            }
+            game.saveState(checkpoints, checkpointCount * stride);
+            checkpointCount++;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package spw4.game2048;
+
+/**
+ * Precomputed left and right moves for every row of {@code width} 4-bit
+ * exponents. A meta entry packs the score delta, the merge count, the won
+ * flag and the 2-bit destination of every cell of the row. The legal entry
+ * holds {@link Direction#left} and {@link Direction#right} masks of the moves
+ * that change the row; shifted right by two they become up and down for a column.
+ */
+final class RowTables {
+    static final int MAX_EXPONENT = 15;
+
+    private static final int SCORE_MASK = 0x3FFFF;
+    private static final int MERGES_SHIFT = 18;
+    private static final int WON_FLAG = 1 << 20;
+    private static final int DESTINATION_SHIFT = 24;
+
+    final int width;
+    final char[] left;
+    final char[] right;
+    final int[] metaLeft;
+    final int[] metaRight;
+    final byte[] legal;
+
+    RowTables(int width) {
+        this.width = width;
+        int rows = 1 << (4 * width);
+        left = new char[rows];
+        right = new char[rows];
+        metaLeft = new int[rows];
+        metaRight = new int[rows];
+        legal = new byte[rows];
+
+        LineSlider slider = new LineSlider(width, MAX_EXPONENT);
+        int[] line = slider.line;
+        for (int row = 0; row < rows; row++) {
+            for (int i = 0; i < width; i++) {
+                line[i] = (row >>> (4 * i)) & 0xF;
+            }
+            slider.slideLeft();
+            int result = 0;
+            int destinations = 0;
+            int mirrored = 0;
+            for (int i = 0; i < width; i++) {
+                result |= line[i] << (4 * i);
+                destinations |= slider.destinations[i] << (2 * i);
+                mirrored |= (width - 1 - slider.destinations[i]) << (2 * (width - 1 - i));
+            }
+            int meta = slider.score | slider.merges << MERGES_SHIFT | (slider.won ? WON_FLAG : 0);
+            left[row] = (char) result;
+            metaLeft[row] = meta | destinations << DESTINATION_SHIFT;
+
+            int reversed = reverse(row);
+            right[reversed] = (char) reverse(result);
+            metaRight[reversed] = meta | mirrored << DESTINATION_SHIFT;
+            if (result != row) {
+                legal[row] |= Direction.left.mask();
+                legal[reversed] |= Direction.right.mask();
+            }
+        }
+    }
+
+    static int score(int meta) {
+        return meta & SCORE_MASK;
+    }
+
+    static int merges(int meta) {
+        return (meta >>> MERGES_SHIFT) & 0x3;
+    }
+
+    static boolean won(int meta) {
+        return (meta & WON_FLAG) != 0;
+    }
+
+    static int destination(int meta, int cell) {
+        return (meta >>> (DESTINATION_SHIFT + 2 * cell)) & 0x3;
+    }
+
+    private int reverse(int row) {
+        int reversed = 0;
+        for (int i = 0; i < width; i++) {
+            reversed |= ((row >>> (4 * i)) & 0xF) << (4 * (width - 1 - i));
+        }
+        return reversed;
+    }
+}
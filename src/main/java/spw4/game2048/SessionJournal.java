@@ -0,0 +1,513 @@
+package spw4.game2048;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Write-ahead journal of session events. A new game is written once with its
+ * id, size and seed and gets a journal index; after that every move, undo and
+ * redo is a single 4-byte record: a 2-bit event, the 2-bit direction and the
+ * 28-bit index. Since a game is fully determined by its seed and the moves
+ * that are not undone (see {@link MoveLog}), this is enough to rebuild it.
+ * <p>
+ * Records are collected in memory and written by group commit: the first
+ * thread calling {@link #sync()} writes and forces everything appended so
+ * far, threads arriving meanwhile wait for that batch or the next one. When a
+ * segment grows past the compaction limit the journal switches to a new
+ * segment and a background thread folds the old ones into a snapshot of move
+ * logs, dropping games no longer in the {@link SessionStore}. The indices of
+ * dropped games are handed out again once the snapshot is written, so older
+ * records of a reused index always come before its new create record. A
+ * failed compaction is thrown by the next {@link #sync()} or {@link #close()}.
+ */
+public final class SessionJournal implements Closeable {
+    public static final long DEFAULT_COMPACT_BYTES = 64L << 20;
+
+    private static final int MOVE = 0;
+    private static final int UNDO = 1;
+    private static final int REDO = 2;
+    private static final int CREATE = 3;
+    private static final int MAX_INDEX = (1 << 28) - 1;
+    private static final int CREATE_BYTES = 4 + 16 + 4 + 8;
+    private static final int SNAPSHOT_MAGIC = 0x32303439;
+    private static final Pattern SEGMENT = Pattern.compile("journal-(\\d+)\\.log");
+
+    private final Path dir;
+    private final SessionStore store;
+    private final long compactBytes;
+    private final Map<UUID, Integer> indices = new ConcurrentHashMap<>();
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "session-journal-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    private volatile IOException compactionFailure;
+    /** First failed write or force, after which nothing is written and every sync fails. */
+    private IOException failure;
+
+    private final Object lock = new Object();
+    private ByteBuffer pending = ByteBuffer.allocate(1 << 16);
+    private ByteBuffer writing = ByteBuffer.allocate(1 << 16);
+    private long appended;
+    private long durable;
+    private boolean flushing;
+    private FileChannel channel;
+    private long segment;
+    private long segmentBytes;
+    private int nextIndex;
+    private int[] freeIndices = new int[16];
+    private int freeCount;
+
+    public SessionJournal(Path dir, SessionStore store) {
+        this(dir, store, DEFAULT_COMPACT_BYTES);
+    }
+
+    public SessionJournal(Path dir, SessionStore store, long compactBytes) {
+        this.dir = dir;
+        this.store = store;
+        this.compactBytes = compactBytes;
+    }
+
+    /**
+     * Rebuilds every journaled game into the store and opens a new segment.
+     * Must be called once before any event is written. Returns the number of
+     * games recovered.
+     */
+    public int recover() throws IOException {
+        Files.createDirectories(dir);
+        Snapshot snapshot = readSnapshot();
+        List<Long> segments = segments(snapshot.segment);
+        for (long number : segments) {
+            readSegment(segmentPath(number), snapshot);
+        }
+        for (Map.Entry<UUID, Session> entry : snapshot.sessions.entrySet()) {
+            MoveLog log = entry.getValue().log;
+            store.put(entry.getKey(), new Replayer(log).seek(log.length()));
+            indices.put(entry.getKey(), entry.getValue().index);
+        }
+        BitSet used = new BitSet(snapshot.nextIndex);
+        for (Session session : snapshot.sessions.values()) {
+            used.set(session.index);
+        }
+        synchronized (lock) {
+            nextIndex = snapshot.nextIndex;
+            for (int index = used.previousClearBit(nextIndex - 1); index >= 0; index = used.previousClearBit(index - 1)) {
+                release(index);
+            }
+            segment = segments.isEmpty() ? snapshot.segment + 1 : segments.get(segments.size() - 1) + 1;
+            channel = openSegment(segment);
+        }
+        return snapshot.sessions.size();
+    }
+
+    /** Journals a new game started by {@link MoveLog#newGame()}. */
+    public void create(UUID id, Game game) {
+        synchronized (lock) {
+            if (freeCount == 0 && nextIndex > MAX_INDEX) {
+                throw new IllegalStateException("Error: journal has no free session index!");
+            }
+            int index = freeCount > 0 ? freeIndices[--freeCount] : nextIndex++;
+            indices.put(id, index);
+            ByteBuffer buffer = reserve(CREATE_BYTES);
+            buffer.putInt(CREATE << 30 | index);
+            buffer.putLong(id.getMostSignificantBits());
+            buffer.putLong(id.getLeastSignificantBits());
+            buffer.putInt(game.getSize());
+            buffer.putLong(game.getSeed());
+        }
+    }
+
+    /** The journal index of the game, or -1 if it is not journaled. */
+    int indexOf(UUID id) {
+        Integer index = indices.get(id);
+        return index != null ? index : -1;
+    }
+
+    /** Journals a move that changed the board. */
+    public void move(UUID id, Direction direction) {
+        append(id, MOVE << 30 | direction.ordinal() << 28);
+    }
+
+    /** Journals an undo that took effect. */
+    public void undo(UUID id) {
+        append(id, UNDO << 30);
+    }
+
+    public void redo(UUID id) {
+        append(id, REDO << 30);
+    }
+
+    private void append(UUID id, int record) {
+        synchronized (lock) {
+            // looked up under the lock so no record follows the release of the index
+            Integer index = indices.get(id);
+            if (index != null) {
+                reserve(4).putInt(record | index);
+            }
+        }
+    }
+
+    private void release(int index) {
+        if (freeCount == freeIndices.length) {
+            freeIndices = Arrays.copyOf(freeIndices, 2 * freeCount);
+        }
+        freeIndices[freeCount++] = index;
+    }
+
+    private ByteBuffer reserve(int bytes) {
+        if (failure != null) {
+            // nothing will be written any more, keep the buffer from growing
+            pending.clear();
+        }
+        if (pending.remaining() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(2 * pending.capacity());
+            pending.flip();
+            larger.put(pending);
+            pending = larger;
+        }
+        appended += bytes;
+        return pending;
+    }
+
+    /** Returns once every event appended before the call is on disk. */
+    public void sync() throws IOException {
+        reportCompactionFailure();
+        flush();
+    }
+
+    private void reportCompactionFailure() throws IOException {
+        IOException failure = compactionFailure;
+        if (failure != null) {
+            compactionFailure = null;
+            throw new IOException("Error: journal compaction failed!", failure);
+        }
+    }
+
+    private void flush() throws IOException {
+        ByteBuffer batch;
+        FileChannel target;
+        long end;
+        synchronized (lock) {
+            checkFailure();
+            end = appended;
+            while (flushing && durable < end) {
+                waitForFlush();
+                checkFailure();
+            }
+            if (durable >= end) {
+                return;
+            }
+            flushing = true;
+            batch = pending;
+            pending = writing;
+            writing = batch;
+            end = appended;
+            target = channel;
+        }
+        boolean compact;
+        try {
+            batch.flip();
+            while (batch.hasRemaining()) {
+                target.write(batch);
+            }
+            target.force(false);
+            batch.clear();
+            synchronized (lock) {
+                durable = Math.max(durable, end);
+                flushing = false;
+                lock.notifyAll();
+                if (target == channel) {
+                    segmentBytes = target.size();
+                }
+                compact = segmentBytes > compactBytes && target == channel;
+            }
+        }
+        catch (IOException | RuntimeException e) {
+            batch.clear();
+            synchronized (lock) {
+                fail(target, e);
+                flushing = false;
+                lock.notifyAll();
+            }
+            throw e;
+        }
+        if (compact && compacting.compareAndSet(false, true)) {
+            long last = rotate();
+            compactor.execute(() -> {
+                try {
+                    compact(last);
+                }
+                catch (IOException e) {
+                    compactionFailure = e;
+                }
+                finally {
+                    compacting.set(false);
+                }
+            });
+        }
+    }
+
+    /** Must be called holding the lock. */
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw new IOException("Error: journal failed to write!", failure);
+        }
+    }
+
+    /**
+     * Marks the journal failed, must be called holding the lock. A partial
+     * write is cut off again so the segment ends with a whole record.
+     */
+    private void fail(FileChannel target, Exception e) {
+        failure = e instanceof IOException ? (IOException) e : new IOException(e);
+        if (target == channel) {
+            try {
+                target.truncate(segmentBytes);
+            }
+            catch (IOException | RuntimeException ignored) {
+                // the torn record at the end is skipped on recovery
+            }
+        }
+    }
+
+    private void waitForFlush() throws IOException {
+        try {
+            lock.wait();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Error: interrupted while waiting for the journal!", e);
+        }
+    }
+
+    /** Flushes the current segment, starts the next one and returns the number of the old one. */
+    private long rotate() throws IOException {
+        flush();
+        synchronized (lock) {
+            while (flushing) {
+                waitForFlush();
+            }
+            checkFailure();
+            ByteBuffer batch = pending;
+            try {
+                batch.flip();
+                while (batch.hasRemaining()) {
+                    channel.write(batch);
+                }
+                channel.force(false);
+            }
+            catch (IOException | RuntimeException e) {
+                fail(channel, e);
+                throw e;
+            }
+            finally {
+                batch.clear();
+            }
+            durable = appended;
+            channel.close();
+            long old = segment;
+            segment++;
+            channel = openSegment(segment);
+            segmentBytes = 0;
+            return old;
+        }
+    }
+
+    /** Folds the snapshot and all segments up to {@code last} into a new snapshot. */
+    void compact(long last) throws IOException {
+        Snapshot snapshot = readSnapshot();
+        for (long number : segments(snapshot.segment)) {
+            if (number <= last) {
+                readSegment(segmentPath(number), snapshot);
+            }
+        }
+        List<Integer> dropped = new ArrayList<>();
+        snapshot.sessions.entrySet().removeIf(entry -> {
+            if (store.getLastAccess(entry.getKey()) < 0) {
+                indices.remove(entry.getKey());
+                dropped.add(entry.getValue().index);
+                return true;
+            }
+            return false;
+        });
+        snapshot.segment = last;
+
+        Path temporary = dir.resolve("snapshot.tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(snapshot.segment);
+            out.writeInt(snapshot.nextIndex);
+            out.writeInt(snapshot.sessions.size());
+            for (Map.Entry<UUID, Session> entry : snapshot.sessions.entrySet()) {
+                out.writeInt(entry.getValue().index);
+                out.writeLong(entry.getKey().getMostSignificantBits());
+                out.writeLong(entry.getKey().getLeastSignificantBits());
+                entry.getValue().log.writeTo(out);
+            }
+        }
+        try (FileChannel file = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            file.force(true);
+        }
+        Files.move(temporary, dir.resolve("snapshot.dat"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        synchronized (lock) {
+            for (int index : dropped) {
+                release(index);
+            }
+        }
+        for (long number : segments(-1)) {
+            if (number <= last) {
+                Files.deleteIfExists(segmentPath(number));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            flush();
+        }
+        finally {
+            synchronized (lock) {
+                if (channel != null) {
+                    channel.close();
+                }
+            }
+        }
+        reportCompactionFailure();
+    }
+
+    private Snapshot readSnapshot() throws IOException {
+        Snapshot snapshot = new Snapshot();
+        Path file = dir.resolve("snapshot.dat");
+        if (!Files.exists(file)) {
+            return snapshot;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Error: " + file + " is not a valid snapshot!");
+            }
+            snapshot.segment = in.readLong();
+            snapshot.nextIndex = in.readInt();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                int index = in.readInt();
+                UUID id = new UUID(in.readLong(), in.readLong());
+                snapshot.add(id, index, MoveLog.readFrom(in));
+            }
+        }
+        return snapshot;
+    }
+
+    /** Applies the records of a segment, a torn record at the end is ignored. */
+    private static void readSegment(Path file, Snapshot snapshot) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (true) {
+                int record = in.readInt();
+                int event = record >>> 30;
+                int index = record & MAX_INDEX;
+                if (event == CREATE) {
+                    UUID id = new UUID(in.readLong(), in.readLong());
+                    int size = in.readInt();
+                    long seed = in.readLong();
+                    snapshot.add(id, index, new MoveLog(size, seed));
+                    snapshot.nextIndex = Math.max(snapshot.nextIndex, index + 1);
+                    continue;
+                }
+                Session session = snapshot.byIndex.get(index);
+                if (session == null) {
+                    continue;
+                }
+                if (event == MOVE) {
+                    session.log.append(Direction.values()[(record >>> 28) & 3]);
+                }
+                else if (event == UNDO) {
+                    session.log.undoLast();
+                }
+                else {
+                    session.log.redoLast();
+                }
+            }
+        }
+        catch (EOFException e) {
+            // end of the segment
+        }
+    }
+
+    private List<Long> segments(long after) throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try (java.util.stream.Stream<Path> files = Files.list(dir)) {
+            files.forEach(file -> {
+                Matcher matcher = SEGMENT.matcher(file.getFileName().toString());
+                if (matcher.matches() && Long.parseLong(matcher.group(1)) > after) {
+                    numbers.add(Long.parseLong(matcher.group(1)));
+                }
+            });
+        }
+        numbers.sort(null);
+        return numbers;
+    }
+
+    private Path segmentPath(long number) {
+        return dir.resolve("journal-" + number + ".log");
+    }
+
+    private FileChannel openSegment(long number) throws IOException {
+        return FileChannel.open(segmentPath(number), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static final class Session {
+        final int index;
+        final MoveLog log;
+
+        Session(int index, MoveLog log) {
+            this.index = index;
+            this.log = log;
+        }
+    }
+
+    private static final class Snapshot {
+        long segment = -1;
+        int nextIndex;
+        final Map<UUID, Session> sessions = new HashMap<>();
+        final Map<Integer, Session> byIndex = new HashMap<>();
+
+        void add(UUID id, int index, MoveLog log) {
+            Session session = new Session(index, log);
+            sessions.put(id, session);
+            byIndex.put(index, session);
+        }
+    }
+}
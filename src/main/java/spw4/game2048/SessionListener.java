@@ -0,0 +1,90 @@
+package spw4.game2048;
+
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opens the {@link GameSessions} and the {@link Bulkhead}s of the application
+ * from its context parameters and closes them again.
+ */
+@WebListener
+public class SessionListener implements ServletContextListener {
+    private static final int DEFAULT_STORE_CAPACITY = 1 << 18;
+    private static final int DEFAULT_MOVE_QUEUE = 10_000;
+    private static final int DEFAULT_COMPUTE_QUEUE = 64;
+
+    @Override
+    public void contextInitialized(ServletContextEvent event) {
+        ServletContext context = event.getServletContext();
+        String file = context.getInitParameter("sessionFile");
+        String capacity = context.getInitParameter("sessionCapacity");
+        Path path = file != null ? Paths.get(file) : Paths.get(System.getProperty("java.io.tmpdir"), "game2048-sessions.dat");
+        SessionStore store;
+        try {
+            store = new SessionStore(path, capacity != null ? Integer.parseInt(capacity) : DEFAULT_STORE_CAPACITY, GameSessions.MAX_SIZE);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Error: cannot open session store " + path + "!", e);
+        }
+
+        String journalDir = context.getInitParameter("sessionJournal");
+        Path journalPath = journalDir != null ? Paths.get(journalDir) : Paths.get(System.getProperty("java.io.tmpdir"), "game2048-journal");
+        SessionJournal journal = new SessionJournal(journalPath, store);
+        try {
+            context.log("Recovered " + journal.recover() + " games from " + journalPath);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Error: cannot recover session journal " + journalPath + "!", e);
+        }
+
+        String cacheSize = context.getInitParameter("sessionCacheSize");
+        String idleMinutes = context.getInitParameter("sessionIdleMinutes");
+        SessionRegistry registry = new SessionRegistry(store, GameSessions.HISTORY_DEPTH, SessionRegistry.DEFAULT_STRIPES,
+                cacheSize != null ? Integer.parseInt(cacheSize) : SessionRegistry.DEFAULT_MAX_ENTRIES,
+                idleMinutes != null ? TimeUnit.MINUTES.toMillis(Long.parseLong(idleMinutes)) : SessionRegistry.DEFAULT_IDLE_MILLIS);
+        context.setAttribute(GameSessions.ATTRIBUTE, new GameSessions(store, journal, registry));
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        context.setAttribute(Bulkhead.MOVES, new Bulkhead("game-moves",
+                intParameter(context, "moveThreads", Math.max(8, 4 * processors)),
+                intParameter(context, "moveQueue", DEFAULT_MOVE_QUEUE)));
+        context.setAttribute(Bulkhead.COMPUTE, new Bulkhead("game-compute",
+                intParameter(context, "computeThreads", Math.max(1, processors / 2)),
+                intParameter(context, "computeQueue", DEFAULT_COMPUTE_QUEUE)));
+    }
+
+    private static int intParameter(ServletContext context, String name, int defaultValue) {
+        String value = context.getInitParameter(name);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent event) {
+        ServletContext context = event.getServletContext();
+        for (String name : new String[] {Bulkhead.MOVES, Bulkhead.COMPUTE}) {
+            Bulkhead bulkhead = (Bulkhead) context.getAttribute(name);
+            if (bulkhead != null) {
+                context.removeAttribute(name);
+                bulkhead.close();
+            }
+        }
+        GameSessions sessions = (GameSessions) context.getAttribute(GameSessions.ATTRIBUTE);
+        if (sessions == null) {
+            return;
+        }
+        context.removeAttribute(GameSessions.ATTRIBUTE);
+        try {
+            sessions.close();
+        }
+        catch (IOException e) {
+            context.log("Error: cannot close sessions!", e);
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package spw4.game2048;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Live games of all sessions, safe to use from every container thread. The
+ * games sit in a {@link ConcurrentHashMap}; every access to a game runs under
+ * one of a fixed set of lock stripes chosen by the id, so moves on one game are
+ * serialized while games on other stripes proceed in parallel. Every update is
+ * written through to the {@link SessionStore} under the same lock, and a game
+ * that is not in memory is loaded from there.
+ * <p>
+ * At most {@code maxEntries} games are kept in memory. They sit in the slots of
+ * a CLOCK ring: an access sets the referenced flag of the game, a new game
+ * takes a free slot or advances the hand, which clears flags until it finds an
+ * unreferenced game to drop from memory. Dropped games stay in the store. Games
+ * idle for longer than {@code idleMillis} expire and are removed from the
+ * store too. Expiry runs incrementally: every request advances a sweep hand over
+ * a few ring slots and a few store slots, there is no full sweep.
+ */
+public final class SessionRegistry {
+    public static final int DEFAULT_STRIPES = 256;
+    public static final int DEFAULT_MAX_ENTRIES = 100_000;
+    public static final long DEFAULT_IDLE_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private static final int SWEEP_STEPS = 2;
+    private static final int STORE_SWEEP_STEPS = 8;
+
+    private final ConcurrentHashMap<UUID, Entry> games = new ConcurrentHashMap<>();
+    private final SessionStore store;
+    private final int historyDepth;
+    private final ReentrantLock[] stripes;
+    private final long idleMillis;
+    private final LongSupplier clock;
+
+    private final ReentrantLock ringLock = new ReentrantLock();
+    private final Entry[] ring;
+    private final int[] freeSlots;
+    private int freeCount;
+    private int hand;
+    private int sweepHand;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public SessionRegistry(SessionStore store, int historyDepth) {
+        this(store, historyDepth, DEFAULT_STRIPES, DEFAULT_MAX_ENTRIES, DEFAULT_IDLE_MILLIS);
+    }
+
+    public SessionRegistry(SessionStore store, int historyDepth, int stripes, int maxEntries, long idleMillis) {
+        this(store, historyDepth, stripes, maxEntries, idleMillis, System::currentTimeMillis);
+    }
+
+    SessionRegistry(SessionStore store, int historyDepth, int stripes, int maxEntries, long idleMillis, LongSupplier clock) {
+        if (stripes < 1 || Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("Error: " + stripes + " is not a valid number of stripes!");
+        }
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Error: " + maxEntries + " is not a valid number of entries!");
+        }
+        this.store = store;
+        this.historyDepth = historyDepth;
+        this.idleMillis = idleMillis;
+        this.clock = clock;
+        this.stripes = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        ring = new Entry[maxEntries];
+        freeSlots = new int[maxEntries];
+        for (int i = 0; i < maxEntries; i++) {
+            freeSlots[i] = maxEntries - 1 - i;
+        }
+        freeCount = maxEntries;
+    }
+
+    /** Registers a new game under a random id and returns the id. */
+    public UUID create(Game game) {
+        UUID id = UUID.randomUUID();
+        ReentrantLock lock = stripe(id);
+        lock.lock();
+        try {
+            store.put(id, game);
+            cache(id, game);
+        }
+        finally {
+            lock.unlock();
+        }
+        sweep();
+        return id;
+    }
+
+    /**
+     * Runs the action on the game while holding its lock and stores the game
+     * afterwards. Returns the result of the action, or null if the id is unknown.
+     */
+    public <T> T update(UUID id, Function<Game, T> action) {
+        return access(id, action, true);
+    }
+
+    /** Runs the action on the game while holding its lock without storing it, for reads. */
+    public <T> T read(UUID id, Function<Game, T> action) {
+        return access(id, action, false);
+    }
+
+    private <T> T access(UUID id, Function<Game, T> action, boolean write) {
+        T result = null;
+        ReentrantLock lock = stripe(id);
+        lock.lock();
+        try {
+            Game game = find(id);
+            if (game != null) {
+                result = action.apply(game);
+                if (write) {
+                    store.put(id, game);
+                }
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+        sweep();
+        return result;
+    }
+
+    /** Number of games in memory. */
+    public int size() {
+        return games.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getExpirations() {
+        return expirations.sum();
+    }
+
+    private Game find(UUID id) {
+        Entry entry = games.get(id);
+        long now = clock.getAsLong();
+        if (entry != null) {
+            hits.increment();
+            entry.referenced = true;
+            entry.lastAccess = now;
+            return entry.game;
+        }
+        misses.increment();
+        Game game = store.get(id);
+        if (game != null) {
+            game.enableHistory(historyDepth);
+            cache(id, game);
+        }
+        return game;
+    }
+
+    /** Puts the game into a ring slot; if no game can be dropped it is only kept in the store. */
+    private void cache(UUID id, Game game) {
+        Entry entry = new Entry(id, game, clock.getAsLong());
+        ringLock.lock();
+        try {
+            if (freeCount == 0 && !evictOne()) {
+                return;
+            }
+            entry.slot = freeSlots[--freeCount];
+            ring[entry.slot] = entry;
+            games.put(id, entry);
+        }
+        finally {
+            ringLock.unlock();
+        }
+    }
+
+    /** Advances the CLOCK hand until one game is dropped, gives up after two turns. */
+    private boolean evictOne() {
+        for (int step = 0; step < 2 * ring.length; step++) {
+            Entry entry = ring[hand];
+            hand = (hand + 1) % ring.length;
+            if (entry == null) {
+                continue;
+            }
+            if (entry.referenced) {
+                entry.referenced = false;
+                continue;
+            }
+            if (drop(entry, false)) {
+                evictions.increment();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Expires a few idle games in memory and in the store, skips the work if another thread is at it. */
+    private void sweep() {
+        if (!ringLock.tryLock()) {
+            return;
+        }
+        try {
+            long now = clock.getAsLong();
+            for (int step = 0; step < SWEEP_STEPS; step++) {
+                Entry entry = ring[sweepHand];
+                sweepHand = (sweepHand + 1) % ring.length;
+                if (entry != null && now - entry.lastAccess > idleMillis && drop(entry, true)) {
+                    expirations.increment();
+                }
+            }
+            expirations.add(store.expire(now - idleMillis, STORE_SWEEP_STEPS, games::containsKey));
+        }
+        finally {
+            ringLock.unlock();
+        }
+    }
+
+    /** Removes the game from memory (and from the store if it expired) unless a request holds it. */
+    private boolean drop(Entry entry, boolean expired) {
+        ReentrantLock lock = stripe(entry.id);
+        if (!lock.tryLock()) {
+            return false;
+        }
+        try {
+            games.remove(entry.id, entry);
+            ring[entry.slot] = null;
+            freeSlots[freeCount++] = entry.slot;
+            if (expired) {
+                store.remove(entry.id);
+            }
+            return true;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock stripe(UUID id) {
+        long hash = (id.getMostSignificantBits() ^ id.getLeastSignificantBits()) * 0x9E3779B97F4A7C15L;
+        return stripes[(int) (hash >>> 40) & (stripes.length - 1)];
+    }
+
+    private static final class Entry {
+        final UUID id;
+        final Game game;
+        int slot;
+        volatile boolean referenced;
+        volatile long lastAccess;
+
+        Entry(UUID id, Game game, long now) {
+            this.id = id;
+            this.game = game;
+            this.lastAccess = now;
+        }
+    }
+}
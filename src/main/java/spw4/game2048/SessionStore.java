@@ -0,0 +1,315 @@
+package spw4.game2048;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Games kept as packed records in a memory-mapped file instead of on the heap.
+ * The file is an open-addressing hash table of fixed-size slots keyed by the
+ * game id with linear probing; a slot holds the id, the board size, the seed,
+ * the last access time and the packed state of the game ({@link Game#saveState}),
+ * which includes the random state, so only games drawing from
+ * {@link RandomSource#create(long)} can be stored. Reopening the file after a
+ * restart finds every stored game again. Removing an id shifts the following
+ * records of its probe run back into the gap (backward-shift deletion), so no
+ * tombstones pile up and lookups of missing ids stop at the first empty slot.
+ * Undo history and move logs stay with the {@link Game} object and are not stored.
+ * <p>
+ * Lookups and updates of existing records share a read lock, only inserts and
+ * removals take the write lock. Callers must not put or get the same id from
+ * two threads at once; the {@link SessionRegistry} serializes per game.
+ */
+public final class SessionStore implements Closeable {
+    private static final int MAGIC = 0x32303438;
+    private static final int HEADER_BYTES = 64;
+    private static final int SLOT_HEADER_BYTES = 40;
+
+    private static final int EMPTY = 0;
+    private static final int USED = 1;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final int maxSize;
+    private final int slotBytes;
+    private final ThreadLocal<long[]> scratch;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile int count;
+    private int expiryCursor;
+
+    /**
+     * Opens or creates the store. {@code capacity} is rounded up to a power of
+     * two, {@code maxSize} is the largest board size a slot has room for; both
+     * must match when an existing file is reopened.
+     */
+    public SessionStore(Path file, int capacity, int maxSize) throws IOException {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Error: " + capacity + " is not a valid capacity!");
+        }
+        int slots = 1;
+        while (slots < capacity) {
+            slots <<= 1;
+        }
+        this.capacity = slots;
+        this.maxSize = maxSize;
+        int stateLength = Board.create(maxSize).packedLength() + 2;
+        scratch = ThreadLocal.withInitial(() -> new long[stateLength]);
+        this.slotBytes = SLOT_HEADER_BYTES + 8 * stateLength;
+        long bytes = HEADER_BYTES + (long) this.capacity * slotBytes;
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Error: " + capacity + " is not a valid capacity!");
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            boolean created = channel.size() == 0;
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            if (created) {
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, this.capacity);
+                buffer.putInt(8, slotBytes);
+                buffer.putInt(12, maxSize);
+                buffer.putInt(16, 0);
+            }
+            else if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != this.capacity || buffer.getInt(8) != slotBytes
+                    || buffer.getInt(12) != maxSize) {
+                throw new IOException("Error: " + file + " is not a valid session store for this capacity!");
+            }
+            count = buffer.getInt(16);
+        }
+        catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /** Stores the current state of the game, replacing an earlier record of the same id. */
+    public void put(UUID id, Game game) {
+        if (game.getSize() > maxSize) {
+            throw new IllegalArgumentException("Error: " + game.getSize() + " is not a valid size!");
+        }
+        lock.readLock().lock();
+        try {
+            int slot = find(id);
+            if (slot >= 0) {
+                write(slot, game);
+                return;
+            }
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            int slot = find(id);
+            if (slot < 0) {
+                slot = insertSlot(id);
+                int offset = offset(slot);
+                buffer.putLong(offset, id.getMostSignificantBits());
+                buffer.putLong(offset + 8, id.getLeastSignificantBits());
+                write(slot, game);
+                buffer.putInt(offset + 16, USED);
+                count++;
+                buffer.putInt(16, count);
+            }
+            else {
+                write(slot, game);
+            }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void write(int slot, Game game) {
+        int offset = offset(slot);
+        long[] state = scratch.get();
+        buffer.putInt(offset + 20, game.getSize());
+        buffer.putLong(offset + 24, game.getSeed());
+        buffer.putLong(offset + 32, System.currentTimeMillis());
+        game.saveState(state, 0);
+        for (int i = 0; i < game.stateLength(); i++) {
+            buffer.putLong(offset + SLOT_HEADER_BYTES + 8 * i, state[i]);
+        }
+    }
+
+    /** Rebuilds the stored game, or returns null if there is none for the id. */
+    public Game get(UUID id) {
+        lock.readLock().lock();
+        try {
+            int slot = find(id);
+            if (slot < 0) {
+                return null;
+            }
+            int offset = offset(slot);
+            Game game = new Game(buffer.getInt(offset + 20), RandomSource.create(buffer.getLong(offset + 24)));
+            long[] state = scratch.get();
+            for (int i = 0; i < game.stateLength(); i++) {
+                state[i] = buffer.getLong(offset + SLOT_HEADER_BYTES + 8 * i);
+            }
+            game.restoreState(state, 0);
+            buffer.putLong(offset + 32, System.currentTimeMillis());
+            return game;
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Milliseconds of the last put or get of the id, or -1 if it is not stored. */
+    public long getLastAccess(UUID id) {
+        lock.readLock().lock();
+        try {
+            int slot = find(id);
+            return slot < 0 ? -1 : buffer.getLong(offset(slot) + 32);
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean remove(UUID id) {
+        lock.writeLock().lock();
+        try {
+            int slot = find(id);
+            if (slot < 0) {
+                return false;
+            }
+            delete(slot);
+            count--;
+            buffer.putInt(16, count);
+            return true;
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Looks at the next {@code slots} slots after the last call and removes the
+     * records last accessed before {@code before}. Returns the number removed.
+     */
+    public int expire(long before, int slots) {
+        return expire(before, slots, id -> false);
+    }
+
+    /** Like {@link #expire(long, int)}, but keeps the records of ids accepted by {@code retain}. */
+    public int expire(long before, int slots, Predicate<UUID> retain) {
+        lock.writeLock().lock();
+        try {
+            int removed = 0;
+            for (int i = 0; i < slots; ) {
+                int offset = offset(expiryCursor);
+                if (buffer.getInt(offset + 16) == USED && buffer.getLong(offset + 32) < before
+                        && !retain.test(new UUID(buffer.getLong(offset), buffer.getLong(offset + 8)))) {
+                    // a later record may shift into this slot, so look at it again
+                    delete(expiryCursor);
+                    removed++;
+                }
+                else {
+                    expiryCursor = (expiryCursor + 1) & (capacity - 1);
+                    i++;
+                }
+            }
+            count -= removed;
+            buffer.putInt(16, count);
+            return removed;
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Writes changed pages of the mapping to the file. */
+    public void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    private int find(UUID id) {
+        int slot = home(id);
+        for (int probe = 0; probe < capacity; probe++) {
+            int offset = offset(slot);
+            int state = buffer.getInt(offset + 16);
+            if (state == EMPTY) {
+                return -1;
+            }
+            if (state == USED && buffer.getLong(offset) == id.getMostSignificantBits()
+                    && buffer.getLong(offset + 8) == id.getLeastSignificantBits()) {
+                return slot;
+            }
+            slot = (slot + 1) & (capacity - 1);
+        }
+        return -1;
+    }
+
+    private int insertSlot(UUID id) {
+        int slot = home(id);
+        for (int probe = 0; probe < capacity; probe++) {
+            if (buffer.getInt(offset(slot) + 16) != USED) {
+                return slot;
+            }
+            slot = (slot + 1) & (capacity - 1);
+        }
+        throw new IllegalStateException("Error: session store is full!");
+    }
+
+    /**
+     * Empties the slot and moves each following record of the probe run whose
+     * home slot is not between the gap and the record one step back into the gap.
+     */
+    private void delete(int slot) {
+        int hole = slot;
+        buffer.putInt(offset(hole) + 16, EMPTY);
+        for (int next = (hole + 1) & (capacity - 1); buffer.getInt(offset(next) + 16) == USED; next = (next + 1) & (capacity - 1)) {
+            int offset = offset(next);
+            int home = home(buffer.getLong(offset), buffer.getLong(offset + 8));
+            if (((next - home) & (capacity - 1)) >= ((next - hole) & (capacity - 1))) {
+                copy(next, hole);
+                buffer.putInt(offset + 16, EMPTY);
+                hole = next;
+            }
+        }
+    }
+
+    private void copy(int from, int to) {
+        int source = offset(from);
+        int target = offset(to);
+        for (int i = 0; i < slotBytes; i += 8) {
+            buffer.putLong(target + i, buffer.getLong(source + i));
+        }
+    }
+
+    private int home(UUID id) {
+        return home(id.getMostSignificantBits(), id.getLeastSignificantBits());
+    }
+
+    private int home(long msb, long lsb) {
+        long hash = (msb ^ lsb) * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & (capacity - 1);
+    }
+
+    private int offset(int slot) {
+        return HEADER_BYTES + slot * slotBytes;
+    }
+}
@@ -0,0 +1,99 @@
+package spw4.game2048;
+
+import java.io.PrintStream;
+
+/** Counters of one simulation worker, merged into a single report at the end of a run. */
+public class SimulationStats {
+    private static final int BUCKETS = 64;
+
+    private long games;
+    private long moves;
+    private long wins;
+    private long scoreSum;
+    private long maxScore;
+    private final long[] scoreHistogram = new long[BUCKETS];
+    private final long[] maxTileHistogram = new long[BUCKETS];
+
+    public void record(Game game, long gameMoves) {
+        games++;
+        moves += gameMoves;
+        if (game.isWon()) {
+            wins++;
+        }
+        int score = game.getScore();
+        scoreSum += score;
+        maxScore = Math.max(maxScore, score);
+        scoreHistogram[score == 0 ? 0 : 32 - Integer.numberOfLeadingZeros(score)]++;
+        maxTileHistogram[Integer.numberOfTrailingZeros(Integer.highestOneBit(maxTile(game)))]++;
+    }
+
+    public void merge(SimulationStats other) {
+        games += other.games;
+        moves += other.moves;
+        wins += other.wins;
+        scoreSum += other.scoreSum;
+        maxScore = Math.max(maxScore, other.maxScore);
+        for (int i = 0; i < BUCKETS; i++) {
+            scoreHistogram[i] += other.scoreHistogram[i];
+            maxTileHistogram[i] += other.maxTileHistogram[i];
+        }
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    public long getMoves() {
+        return moves;
+    }
+
+    public long getWins() {
+        return wins;
+    }
+
+    public long getMaxScore() {
+        return maxScore;
+    }
+
+    public double getAverageScore() {
+        return games == 0 ? 0 : (double) scoreSum / games;
+    }
+
+    public long[] getScoreHistogram() {
+        return scoreHistogram.clone();
+    }
+
+    public long[] getMaxTileHistogram() {
+        return maxTileHistogram.clone();
+    }
+
+    public void print(PrintStream out, long nanos) {
+        double seconds = nanos / 1e9;
+        out.printf("games: %d, moves: %d, wins: %d%n", games, moves, wins);
+        out.printf("games/s: %.0f, moves/s: %.0f%n", games / seconds, moves / seconds);
+        out.printf("score: avg %.1f, max %d%n", getAverageScore(), maxScore);
+        out.println("score histogram:");
+        for (int i = 0; i < BUCKETS; i++) {
+            if (scoreHistogram[i] != 0) {
+                long low = i == 0 ? 0 : 1L << (i - 1);
+                out.printf("  [%8d, %8d) %10d %6.2f%%%n", low, 1L << i, scoreHistogram[i], 100.0 * scoreHistogram[i] / games);
+            }
+        }
+        out.println("max tile histogram:");
+        for (int i = 0; i < BUCKETS; i++) {
+            if (maxTileHistogram[i] != 0) {
+                out.printf("  %8d %10d %6.2f%%%n", 1L << i, maxTileHistogram[i], 100.0 * maxTileHistogram[i] / games);
+            }
+        }
+    }
+
+    private static int maxTile(Game game) {
+        int max = 0;
+        for (int row = 0; row < game.getSize(); row++) {
+            for (int col = 0; col < game.getSize(); col++) {
+                max = Math.max(max, game.getValueAt(row, col));
+            }
+        }
+        return max;
+    }
+}
@@ -0,0 +1,115 @@
+package spw4.game2048;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Headless batch runner playing complete games through {@link Game} on all
+ * cores. The games are divided into one contiguous share per worker, the
+ * first {@code games % threads} workers playing one more; each worker plays
+ * its share one after another from its own random stream split off the master
+ * seed. A run is therefore reproducible for a given seed and thread count, but
+ * changes with the number of threads.
+ *
+ * <pre>
+ * java -cp target/classes spw4.game2048.Simulator --games 1000000 --strategy corner --seed 42
+ * </pre>
+ */
+public class Simulator {
+    private static final int MAX_STUCK_MOVES = 64;
+
+    private final int size;
+    private final String strategy;
+    private final int threads;
+
+    public Simulator(int size, String strategy, int threads) {
+        this.size = size;
+        this.strategy = strategy;
+        this.threads = threads;
+    }
+
+    public SimulationStats run(long games, long seed) throws Exception {
+        SplittableRandom master = new SplittableRandom(seed);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<SimulationStats>> workers = new ArrayList<>();
+            for (int worker = 0; worker < threads; worker++) {
+                long count = games / threads + (worker < games % threads ? 1 : 0);
+                SplittableRandom random = master.split();
+                Strategy workerStrategy = Strategy.create(strategy);
+                workers.add(executor.submit(() -> play(count, workerStrategy, random)));
+            }
+            SimulationStats stats = new SimulationStats();
+            for (Future<SimulationStats> worker : workers) {
+                stats.merge(worker.get());
+            }
+            return stats;
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private SimulationStats play(long count, Strategy strategy, SplittableRandom random) {
+        SimulationStats stats = new SimulationStats();
+        for (long i = 0; i < count; i++) {
+            Game game = new Game(size, RandomSource.create(random.nextLong()));
+            game.initialize();
+            long moves = 0;
+            int stuck = 0;
+            while (!game.isOver() && stuck < MAX_STUCK_MOVES) {
+                if (game.move(strategy.chooseMove(game, random)).isMoved()) {
+                    moves++;
+                    stuck = 0;
+                }
+                else {
+                    stuck++;
+                }
+            }
+            stats.record(game, moves);
+        }
+        return stats;
+    }
+
+    public static void main(String[] args) throws Exception {
+        long games = 100_000;
+        long seed = System.nanoTime();
+        int size = 4;
+        String strategy = "random";
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--games":
+                    games = Long.parseLong(args[++i]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "--size":
+                    size = Integer.parseInt(args[++i]);
+                    break;
+                case "--strategy":
+                    strategy = args[++i];
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    System.err.println("usage: Simulator [--games n] [--seed s] [--size n] "
+                            + "[--strategy random|greedy|corner|<class>] [--threads n]");
+                    System.exit(2);
+            }
+        }
+
+        System.out.printf("strategy %s, %dx%d, %d games on %d threads, seed %d%n",
+                strategy, size, size, games, threads, seed);
+        long start = System.nanoTime();
+        SimulationStats stats = new Simulator(size, strategy, threads).run(games, seed);
+        stats.print(System.out, System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,182 @@
+package spw4.game2048;
+
+/**
+ * 3x3 board packed into the low 36 bits of a {@code long}, laid out like
+ * {@link BitBoard} with 12-bit rows and 4096-entry {@link RowTables}.
+ */
+public final class SmallBitBoard implements Board {
+    static final int SIZE = 3;
+    static final int MAX_EXPONENT = RowTables.MAX_EXPONENT;
+
+    private static final long EMPTY_MASK = 0x111111111L;
+    private static final long ROW_NEIGHBOURS = 0x11011011L;
+    private static final long COL_NEIGHBOURS = 0x111111L;
+
+    private static final RowTables TABLES = new RowTables(SIZE);
+    private static final char[] ROW_LEFT = TABLES.left;
+    private static final char[] ROW_RIGHT = TABLES.right;
+    private static final int[] META_LEFT = TABLES.metaLeft;
+    private static final int[] META_RIGHT = TABLES.metaRight;
+    private static final byte[] LEGAL = TABLES.legal;
+
+    private long cells;
+
+    public SmallBitBoard() {
+    }
+
+    public SmallBitBoard(long cells) {
+        this.cells = cells;
+    }
+
+    public long getCells() {
+        return cells;
+    }
+
+    public void setCells(long cells) {
+        this.cells = cells;
+    }
+
+    @Override
+    public int getSize() {
+        return SIZE;
+    }
+
+    @Override
+    public int getValueAt(int row, int col) {
+        int exponent = (int) (cells >>> shift(row, col)) & 0xF;
+        return exponent == 0 ? 0 : 1 << exponent;
+    }
+
+    @Override
+    public void setValueAt(int row, int col, int value) {
+        int shift = shift(row, col);
+        cells = (cells & ~(0xFL << shift)) | ((long) LineSlider.toExponent(value, MAX_EXPONENT) << shift);
+    }
+
+    @Override
+    public void clear() {
+        cells = 0;
+    }
+
+    @Override
+    public boolean move(Direction direction, MoveResult result) {
+        result.reset(SIZE);
+        long before = cells;
+        switch (direction) {
+            case up:
+                cells = transpose(moveRows(transpose(cells), ROW_LEFT, META_LEFT, true, result));
+                break;
+            case down:
+                cells = transpose(moveRows(transpose(cells), ROW_RIGHT, META_RIGHT, true, result));
+                break;
+            case left:
+                cells = moveRows(cells, ROW_LEFT, META_LEFT, false, result);
+                break;
+            case right:
+                cells = moveRows(cells, ROW_RIGHT, META_RIGHT, false, result);
+                break;
+        }
+        result.setMoved(cells != before);
+        return result.isMoved();
+    }
+
+    @Override
+    public int countEmpty() {
+        return Long.bitCount(emptyCells(cells));
+    }
+
+    @Override
+    public int getEmptyCell(int index) {
+        long empty = emptyCells(cells);
+        for (int i = 0; i < index && empty != 0; i++) {
+            empty &= empty - 1;
+        }
+        if (empty == 0) {
+            throw new InvalidEmptyPosition("Error: Empty Position is not empty!");
+        }
+        return Long.numberOfTrailingZeros(empty) >>> 2;
+    }
+
+    @Override
+    public boolean hasEqualNeighbours() {
+        return (emptyCells(cells ^ (cells >>> 4)) & ROW_NEIGHBOURS) != 0
+                || (emptyCells(cells ^ (cells >>> 12)) & COL_NEIGHBOURS) != 0;
+    }
+
+    @Override
+    public int legalMoves() {
+        return legalMoves(cells);
+    }
+
+    @Override
+    public Board copy() {
+        return new SmallBitBoard(cells);
+    }
+
+    @Override
+    public int packedLength() {
+        return 1;
+    }
+
+    @Override
+    public void pack(long[] dst, int offset) {
+        dst[offset] = cells;
+    }
+
+    @Override
+    public void unpack(long[] src, int offset) {
+        cells = src[offset];
+    }
+
+    public static int legalMoves(long cells) {
+        long columns = transpose(cells);
+        int rowMoves = LEGAL[(int) cells & 0xFFF]
+                | LEGAL[(int) (cells >>> 12) & 0xFFF]
+                | LEGAL[(int) (cells >>> 24) & 0xFFF];
+        int columnMoves = LEGAL[(int) columns & 0xFFF]
+                | LEGAL[(int) (columns >>> 12) & 0xFFF]
+                | LEGAL[(int) (columns >>> 24) & 0xFFF];
+        return rowMoves | columnMoves >>> 2;
+    }
+
+    static long transpose(long x) {
+        return (x & 0xF000F000FL)
+                | (x & 0xF000F0L) << 8
+                | (x & 0xF000F000L) >>> 8
+                | (x & 0xF00L) << 16
+                | (x & 0xF000000L) >>> 16;
+    }
+
+    static long emptyCells(long x) {
+        x |= x >>> 2;
+        x |= x >>> 1;
+        return ~x & EMPTY_MASK;
+    }
+
+    private static long moveRows(long board, char[] rows, int[] metas, boolean columns, MoveResult result) {
+        long moved = 0;
+        for (int line = 0; line < SIZE; line++) {
+            int shift = 12 * line;
+            int row = (int) (board >>> shift) & 0xFFF;
+            moved |= (long) rows[row] << shift;
+            int meta = metas[row];
+            result.add(RowTables.score(meta), RowTables.merges(meta), RowTables.won(meta));
+            for (int i = 0; i < SIZE; i++) {
+                if (((row >>> (4 * i)) & 0xF) != 0) {
+                    int destination = RowTables.destination(meta, i);
+                    if (columns) {
+                        result.setDestination(i * SIZE + line, destination * SIZE + line);
+                    }
+                    else {
+                        result.setDestination(line * SIZE + i, line * SIZE + destination);
+                    }
+                }
+            }
+        }
+        return moved;
+    }
+
+    private static int shift(int row, int col) {
+        return 4 * (row * SIZE + col);
+    }
+}
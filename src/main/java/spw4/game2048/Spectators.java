@@ -0,0 +1,295 @@
+package spw4.game2048;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-Sent Events of games that someone watches. Every watched game has a
+ * feed: a ring of the last {@code capacity} events, written only by the thread
+ * holding the session lock of the game. Publishing stores the event, which is
+ * encoded once for all subscribers, and schedules every subscriber on the pump
+ * threads; the player never writes to a spectator. Each subscriber keeps its
+ * own position in the ring. One that falls more than {@code capacity} events
+ * behind gets the full state again and continues from there. A subscriber
+ * whose connection fails is dropped. Games nobody watches have no feed and
+ * cost a map lookup per move.
+ * <p>
+ * Sinks write blocking, so a watchdog closes every subscriber whose write has
+ * not returned within {@code writeTimeoutMillis}; closing the sink ends the
+ * response, which fails the stuck write and frees its pump thread for the
+ * other spectators.
+ */
+public final class Spectators implements Closeable {
+    public static final int DEFAULT_CAPACITY = 64;
+    public static final int DEFAULT_MAX_SUBSCRIBERS = 10_000;
+    public static final long KEEP_ALIVE_SECONDS = 15;
+    public static final long DEFAULT_WRITE_TIMEOUT_MILLIS = 10_000;
+
+    private static final byte[] KEEP_ALIVE = ":\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final GameSessions sessions;
+    private final int capacity;
+    private final int maxSubscribers;
+    private final long writeTimeoutNanos;
+    private final ConcurrentHashMap<UUID, Feed> feeds = new ConcurrentHashMap<>();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final ExecutorService pump;
+    private final ScheduledExecutorService keepAlive;
+
+    public Spectators(GameSessions sessions, int threads, int capacity, int maxSubscribers) {
+        this(sessions, threads, capacity, maxSubscribers, DEFAULT_WRITE_TIMEOUT_MILLIS);
+    }
+
+    public Spectators(GameSessions sessions, int threads, int capacity, int maxSubscribers, long writeTimeoutMillis) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Error: " + capacity + " is not a valid capacity!");
+        }
+        if (writeTimeoutMillis < 1) {
+            throw new IllegalArgumentException("Error: " + writeTimeoutMillis + " is not a valid write timeout!");
+        }
+        this.sessions = sessions;
+        this.capacity = capacity;
+        this.maxSubscribers = maxSubscribers;
+        this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(writeTimeoutMillis);
+        pump = Executors.newFixedThreadPool(threads, daemon("spectator-pump"));
+        keepAlive = Executors.newSingleThreadScheduledExecutor(daemon("spectator-keep-alive"));
+        keepAlive.scheduleWithFixedDelay(this::keepAlive, KEEP_ALIVE_SECONDS, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+        long checkMillis = Math.max(1, Math.min(1000, writeTimeoutMillis / 4));
+        keepAlive.scheduleWithFixedDelay(this::closeStuck, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /** Feed of the game if anyone watches it, to publish to under the session lock. */
+    Feed feed(UUID id) {
+        return feeds.get(id);
+    }
+
+    /**
+     * Starts streaming the game to the sink, beginning with its full state.
+     * Returns null if there is no such game or too many subscribers.
+     */
+    public Subscription subscribe(UUID id, Sink sink) {
+        if (subscribers.incrementAndGet() > maxSubscribers) {
+            subscribers.decrementAndGet();
+            return null;
+        }
+        Subscription subscription = new Subscription(id, sink);
+        feeds.compute(id, (key, feed) -> {
+            if (feed == null) {
+                feed = new Feed(capacity);
+            }
+            feed.subscriptions.add(subscription);
+            subscription.feed = feed;
+            return feed;
+        });
+        if (sessions.read(id, game -> true) == null) {
+            subscription.detach();
+            return null;
+        }
+        subscription.schedule();
+        return subscription;
+    }
+
+    public int getSubscribers() {
+        return subscribers.get();
+    }
+
+    public int getFeeds() {
+        return feeds.size();
+    }
+
+    private void keepAlive() {
+        for (Feed feed : feeds.values()) {
+            for (Subscription subscription : feed.subscriptions) {
+                subscription.ping = true;
+                subscription.schedule();
+            }
+        }
+    }
+
+    private void closeStuck() {
+        long now = System.nanoTime();
+        for (Feed feed : feeds.values()) {
+            for (Subscription subscription : feed.subscriptions) {
+                long started = subscription.writeStarted;
+                if (started != 0 && now - started > writeTimeoutNanos) {
+                    subscription.close();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        keepAlive.shutdownNow();
+        pump.shutdownNow();
+        for (Feed feed : feeds.values()) {
+            for (Subscription subscription : feed.subscriptions) {
+                subscription.close();
+            }
+        }
+    }
+
+    private static byte[] event(String name, String json) {
+        return ("event: " + name + "\ndata: " + json + "\n\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** Where the events of one subscriber go, typically an asynchronous response. */
+    public interface Sink {
+        void write(byte[] bytes) throws IOException;
+
+        void close();
+    }
+
+    /** Broadcast ring of one game, written by one thread at a time. */
+    static final class Feed {
+        private final byte[][] ring;
+        private final CopyOnWriteArrayList<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+        private volatile long published;
+
+        Feed(int capacity) {
+            ring = new byte[capacity][];
+        }
+
+        /** Publishes the delta of a change, must be called under the session lock of the game. */
+        void publish(String json) {
+            long sequence = published;
+            ring[(int) sequence & (ring.length - 1)] = event("delta", json);
+            published = sequence + 1;
+            for (Subscription subscription : subscriptions) {
+                subscription.schedule();
+            }
+        }
+    }
+
+    /** One spectator; at most one pump thread works on it at a time. */
+    public final class Subscription implements Runnable {
+        private final UUID id;
+        private final Sink sink;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private Feed feed;
+        private long next = -1;
+        private volatile boolean ping;
+        /** Start of the write in progress, or 0. */
+        private volatile long writeStarted;
+
+        Subscription(UUID id, Sink sink) {
+            this.id = id;
+            this.sink = sink;
+        }
+
+        void schedule() {
+            if (!closed.get() && scheduled.compareAndSet(false, true)) {
+                try {
+                    pump.execute(this);
+                }
+                catch (RejectedExecutionException e) {
+                    close();
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                boolean wrote = false;
+                while (!closed.get()) {
+                    if (next < 0 || feed.published - next > feed.ring.length) {
+                        resync();
+                        wrote = true;
+                        continue;
+                    }
+                    if (next == feed.published) {
+                        break;
+                    }
+                    byte[] event = feed.ring[(int) next & (feed.ring.length - 1)];
+                    // the slot may have been overwritten while it was read
+                    if (feed.published - next > feed.ring.length) {
+                        continue;
+                    }
+                    write(event);
+                    next++;
+                    wrote = true;
+                }
+                if (ping && !wrote && !closed.get()) {
+                    write(KEEP_ALIVE);
+                }
+                ping = false;
+            }
+            catch (IOException | RuntimeException e) {
+                close();
+            }
+            finally {
+                scheduled.set(false);
+            }
+            if (!closed.get() && next >= 0 && next != feed.published) {
+                schedule();
+            }
+        }
+
+        private void resync() throws IOException {
+            // the position and the state are taken together under the session lock
+            long[] position = new long[1];
+            String state = sessions.read(id, game -> {
+                position[0] = feed.published;
+                return DeltaEncoder.toJson(id, game, null, null);
+            });
+            if (state == null) {
+                close();
+                return;
+            }
+            write(event("state", state));
+            next = position[0];
+        }
+
+        private void write(byte[] bytes) throws IOException {
+            writeStarted = System.nanoTime() | 1;
+            try {
+                sink.write(bytes);
+            }
+            finally {
+                writeStarted = 0;
+            }
+        }
+
+        /** Stops the stream and drops the feed of the game if nobody else watches it. */
+        public void close() {
+            if (detach()) {
+                sink.close();
+            }
+        }
+
+        private boolean detach() {
+            if (!closed.compareAndSet(false, true)) {
+                return false;
+            }
+            subscribers.decrementAndGet();
+            feeds.computeIfPresent(id, (key, current) -> {
+                current.subscriptions.remove(this);
+                return current.subscriptions.isEmpty() ? null : current;
+            });
+            return true;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package spw4.game2048;
+
+/**
+ * SplitMix64: the state is a single {@code long} advanced by a fixed odd
+ * constant and every output is a mix of that state, so saving, restoring and
+ * jumping any distance are a single assignment. This is the generator behind
+ * {@link java.util.SplittableRandom}, without its atomic seeding and with the
+ * state exposed.
+ */
+public final class SplitMixRandom implements RandomSource {
+    static final long GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final long seed;
+    private long state;
+
+    public SplitMixRandom(long seed) {
+        this.seed = seed;
+        this.state = seed;
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("Error: " + bound + " is not a valid bound!");
+        }
+        long product = (nextLong() >>> 32) * bound;
+        if ((product & 0xFFFFFFFFL) < bound) {
+            long threshold = (1L << 32) % bound;
+            while ((product & 0xFFFFFFFFL) < threshold) {
+                product = (nextLong() >>> 32) * bound;
+            }
+        }
+        return (int) (product >>> 32);
+    }
+
+    @Override
+    public long nextLong() {
+        state += GAMMA;
+        return mix(state);
+    }
+
+    @Override
+    public long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public long getState() {
+        return state;
+    }
+
+    @Override
+    public void setState(long state) {
+        this.state = state;
+    }
+
+    @Override
+    public void jump(long steps) {
+        state += steps * GAMMA;
+    }
+
+    @Override
+    public RandomSource split() {
+        return new SplitMixRandom(nextLong());
+    }
+
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
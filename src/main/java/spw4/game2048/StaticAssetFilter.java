@@ -0,0 +1,125 @@
+package spw4.game2048;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.annotation.WebFilter;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+
+/**
+ * Serves the files under {@code css}, {@code icons} and {@code js} from
+ * {@link StaticAssets} loaded at startup. The encoding is negotiated from
+ * {@code Accept-Encoding}, every encoding has its own strong ETag, a matching
+ * {@code If-None-Match} is answered with 304 and single byte ranges are
+ * supported. Requests for the current {@link StaticAssets#versioned versioned}
+ * URL may be cached for a year, all others have to be revalidated.
+ */
+@WebFilter(urlPatterns = {"/css/*", "/icons/*", "/js/*"}, asyncSupported = true)
+public class StaticAssetFilter implements Filter {
+    private static final String[] ROOTS = {"/css/", "/icons/", "/js/"};
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+
+    private StaticAssets assets;
+
+    @Override
+    public void init(FilterConfig config) throws ServletException {
+        ServletContext context = config.getServletContext();
+        assets = new StaticAssets();
+        try {
+            for (String root : ROOTS) {
+                load(context, root);
+            }
+        }
+        catch (IOException e) {
+            throw new ServletException("Error: cannot load static assets!", e);
+        }
+        context.setAttribute(StaticAssets.ATTRIBUTE, assets);
+        context.log("Loaded " + assets.size() + " static assets");
+    }
+
+    private void load(ServletContext context, String directory) throws IOException {
+        Set<String> paths = context.getResourcePaths(directory);
+        if (paths == null) {
+            return;
+        }
+        for (String path : paths) {
+            if (path.endsWith("/")) {
+                load(context, path);
+            }
+            else if (!path.endsWith(".br")) {
+                byte[] brotli = paths.contains(path + ".br") ? read(context, path + ".br") : null;
+                assets.add(path, context.getMimeType(path), read(context, path), brotli);
+            }
+        }
+    }
+
+    private static byte[] read(ServletContext context, String path) throws IOException {
+        try (InputStream in = context.getResourceAsStream(path)) {
+            return in.readAllBytes();
+        }
+    }
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain chain) throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) servletRequest;
+        HttpServletResponse response = (HttpServletResponse) servletResponse;
+        String method = request.getMethod();
+        String path = request.getServletPath() + (request.getPathInfo() != null ? request.getPathInfo() : "");
+        StaticAssets.Asset asset = assets.get(path);
+        if (asset == null || !("GET".equals(method) || "HEAD".equals(method))) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String encoding = StaticAssets.negotiate(request.getHeader("Accept-Encoding"), asset);
+        String etag = asset.getEtag(encoding);
+        boolean current = asset.getHash().equals(request.getParameter(StaticAssets.VERSION_PARAMETER));
+        response.setHeader("ETag", etag);
+        response.setHeader("Cache-Control", current ? IMMUTABLE : "no-cache");
+        response.setHeader("Vary", "Accept-Encoding");
+        response.setHeader("Accept-Ranges", "bytes");
+        if (GamePage.matches(request.getHeader("If-None-Match"), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        byte[] body = asset.getBody(encoding);
+        if (asset.getContentType() != null) {
+            response.setContentType(asset.getContentType());
+        }
+        if (encoding != null) {
+            response.setHeader("Content-Encoding", encoding);
+        }
+        String ifRange = request.getHeader("If-Range");
+        long[] range = ifRange == null || ifRange.equals(etag) ? StaticAssets.parseRange(request.getHeader("Range"), body.length) : null;
+        int offset = 0;
+        int length = body.length;
+        if (range != null && range.length == 0) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader("Content-Range", "bytes */" + body.length);
+            return;
+        }
+        if (range != null) {
+            offset = (int) range[0];
+            length = (int) (range[1] - range[0] + 1);
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader("Content-Range", "bytes " + range[0] + "-" + range[1] + "/" + body.length);
+        }
+        response.setContentLength(length);
+        if ("GET".equals(method)) {
+            response.getOutputStream().write(body, offset, length);
+        }
+    }
+
+    @Override
+    public void destroy() {
+    }
+}
@@ -0,0 +1,219 @@
+package spw4.game2048;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Static files kept in memory with their content hash and a gzip variant
+ * compressed once at startup, plus a brotli variant if one was deployed next
+ * to the file as {@code <name>.br}. Versioned URLs carry the hash, so a page
+ * linking to them lets browsers cache the files for good.
+ */
+public final class StaticAssets {
+    public static final String ATTRIBUTE = StaticAssets.class.getName();
+    public static final String VERSION_PARAMETER = "v";
+
+    private static final String[] COMPRESSIBLE = {"text/", "application/javascript", "application/json", "image/svg+xml"};
+
+    private final Map<String, Asset> assets = new ConcurrentHashMap<>();
+    private volatile byte[] pageHead;
+
+    /** Adds a file under its path relative to the context root, starting with {@code /}. */
+    public Asset add(String path, String contentType, byte[] content, byte[] brotli) {
+        boolean compressible = false;
+        for (String prefix : COMPRESSIBLE) {
+            compressible |= contentType != null && contentType.startsWith(prefix);
+        }
+        byte[] gzip = compressible ? gzip(content) : null;
+        Asset asset = new Asset(contentType, content, gzip != null && gzip.length < content.length ? gzip : null, brotli);
+        assets.put(path, asset);
+        pageHead = null;
+        return asset;
+    }
+
+    public Asset get(String path) {
+        return assets.get(path);
+    }
+
+    public int size() {
+        return assets.size();
+    }
+
+    /**
+     * Returns the path (without leading {@code /}) with the content hash as
+     * query, or the path as it is if there is no such asset.
+     */
+    public String versioned(String path) {
+        Asset asset = assets.get("/" + path);
+        return asset == null ? path : path + "?" + VERSION_PARAMETER + "=" + asset.hash;
+    }
+
+    /** Start of the {@link GamePage} linking the versioned URLs, built on first use. */
+    byte[] getPageHead() {
+        byte[] head = pageHead;
+        if (head == null) {
+            head = GamePage.head(this::versioned);
+            pageHead = head;
+        }
+        return head;
+    }
+
+    private static byte[] gzip(byte[] content) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.length / 3 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            out.write(content);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static String hash(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder sb = new StringBuilder(16);
+            for (int i = 0; i < 8; i++) {
+                sb.append(Character.forDigit((digest[i] >> 4) & 0xF, 16)).append(Character.forDigit(digest[i] & 0xF, 16));
+            }
+            return sb.toString();
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Picks the encoding for an {@code Accept-Encoding} header among those the
+     * asset has: {@code br}, then {@code gzip}, otherwise null for identity.
+     */
+    public static String negotiate(String acceptEncoding, Asset asset) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        if (asset.brotli != null && accepts(acceptEncoding, "br")) {
+            return "br";
+        }
+        if (asset.gzip != null && accepts(acceptEncoding, "gzip")) {
+            return "gzip";
+        }
+        return null;
+    }
+
+    static boolean accepts(String acceptEncoding, String coding) {
+        boolean wildcard = false;
+        for (String part : acceptEncoding.toLowerCase(Locale.ROOT).split(",")) {
+            String[] fields = part.split(";");
+            String name = fields[0].trim();
+            boolean allowed = true;
+            for (int i = 1; i < fields.length; i++) {
+                String parameter = fields[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        allowed = Double.parseDouble(parameter.substring(2)) > 0;
+                    }
+                    catch (NumberFormatException e) {
+                        allowed = false;
+                    }
+                }
+            }
+            if (name.equals(coding)) {
+                return allowed;
+            }
+            if (name.equals("*")) {
+                wildcard = allowed;
+            }
+        }
+        return wildcard;
+    }
+
+    /**
+     * Parses a single {@code Range} header against a body of the given length
+     * and returns the first and the last byte, both inclusive. Returns null if
+     * the whole body should be sent (no, an unsupported or a multi-part range)
+     * and an empty array if the range cannot be satisfied.
+     */
+    public static long[] parseRange(String range, long length) {
+        if (range == null || !range.startsWith("bytes=") || range.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = range.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            long first;
+            long last;
+            if (dash == 0) {
+                long suffix = Long.parseLong(spec.substring(1));
+                if (suffix <= 0) {
+                    return new long[0];
+                }
+                first = Math.max(0, length - suffix);
+                last = length - 1;
+            }
+            else {
+                first = Long.parseLong(spec.substring(0, dash));
+                last = dash == spec.length() - 1 ? Long.MAX_VALUE : Long.parseLong(spec.substring(dash + 1));
+                if (last < first) {
+                    return null;
+                }
+                if (first >= length) {
+                    return new long[0];
+                }
+                last = Math.min(length - 1, last);
+            }
+            return new long[] {first, last};
+        }
+        catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public static final class Asset {
+        private final String contentType;
+        private final String hash;
+        private final byte[] identity;
+        private final byte[] gzip;
+        private final byte[] brotli;
+
+        Asset(String contentType, byte[] identity, byte[] gzip, byte[] brotli) {
+            this.contentType = contentType;
+            this.hash = StaticAssets.hash(identity);
+            this.identity = identity;
+            this.gzip = gzip;
+            this.brotli = brotli;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getHash() {
+            return hash;
+        }
+
+        /** Body in the given encoding, null for identity. */
+        public byte[] getBody(String encoding) {
+            return encoding == null ? identity : encoding.equals("gzip") ? gzip : brotli;
+        }
+
+        /** Strong validator of the body in the given encoding, each encoding is its own representation. */
+        public String getEtag(String encoding) {
+            return "\"" + hash + (encoding == null ? "" : "-" + encoding) + "\"";
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package spw4.game2048;
+
+import java.util.SplittableRandom;
+
+/**
+ * Picks the next move of a game in the batch {@link Simulator}. Every worker
+ * gets its own instance, so implementations need not be thread-safe, and
+ * custom strategies are loaded by class name through a no-argument constructor.
+ */
+public interface Strategy {
+    Direction chooseMove(Game game, SplittableRandom random);
+
+    static Strategy create(String name) {
+        switch (name) {
+            case "random":
+                return new RandomStrategy();
+            case "greedy":
+                return new GreedyStrategy();
+            case "corner":
+                return new CornerStrategy();
+        }
+        try {
+            return (Strategy) Class.forName(name).getDeclaredConstructor().newInstance();
+        }
+        catch (ReflectiveOperationException | ClassCastException e) {
+            throw new IllegalArgumentException("Error: " + name + " is not a valid strategy!", e);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package spw4.game2048;
+
+/**
+ * The 8 rotations and reflections of a square board. Every symmetry is a
+ * transpose, a left-right mirror and an up-down flip, applied in that order
+ * when the matching bit of its ordinal is set. Values that only depend on the
+ * board up to symmetry can be cached under {@link #canonical(long)}; a move
+ * found for the canonical board is mapped back with {@link #unmap(Direction)}.
+ */
+public enum Symmetry {
+    identity,
+    mirror,
+    flip,
+    rotate180,
+    transpose,
+    rotateRight,
+    rotateLeft,
+    antiTranspose;
+
+    private static final Symmetry[] SYMMETRIES = values();
+
+    private boolean mirrors() {
+        return (ordinal() & 1) != 0;
+    }
+
+    private boolean flips() {
+        return (ordinal() & 2) != 0;
+    }
+
+    private boolean transposes() {
+        return (ordinal() & 4) != 0;
+    }
+
+    /** Applies the symmetry to a packed 4x4 {@link BitBoard}. */
+    public long apply(long cells) {
+        if (transposes()) {
+            cells = BitBoard.transpose(cells);
+        }
+        if (mirrors()) {
+            cells = mirror(cells);
+        }
+        if (flips()) {
+            cells = flip(cells);
+        }
+        return cells;
+    }
+
+    /** Applies the symmetry to a square board of any size. */
+    public int[][] apply(int[][] board) {
+        int size = board.length;
+        int[][] result = new int[size][size];
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                int r = transposes() ? col : row;
+                int c = transposes() ? row : col;
+                result[flips() ? size - 1 - r : r][mirrors() ? size - 1 - c : c] = board[row][col];
+            }
+        }
+        return result;
+    }
+
+    /** Inverse of this symmetry: every one is its own inverse except the two quarter turns. */
+    public Symmetry inverse() {
+        if (this == rotateRight) {
+            return rotateLeft;
+        }
+        if (this == rotateLeft) {
+            return rotateRight;
+        }
+        return this;
+    }
+
+    /** Direction on the transformed board that does what {@code direction} does on the original. */
+    public Direction map(Direction direction) {
+        if (transposes()) {
+            direction = transpose(direction);
+        }
+        if (mirrors()) {
+            direction = mirror(direction);
+        }
+        if (flips()) {
+            direction = flip(direction);
+        }
+        return direction;
+    }
+
+    /** Direction on the original board that does what {@code direction} does on the transformed one. */
+    public Direction unmap(Direction direction) {
+        return inverse().map(direction);
+    }
+
+    /** Returns the symmetry that turns the board into its canonical form, the smallest of its 8 images. */
+    public static Symmetry of(long cells) {
+        Symmetry best = identity;
+        long min = cells;
+        for (int i = 1; i < SYMMETRIES.length; i++) {
+            long image = SYMMETRIES[i].apply(cells);
+            if (Long.compareUnsigned(image, min) < 0) {
+                min = image;
+                best = SYMMETRIES[i];
+            }
+        }
+        return best;
+    }
+
+    /** Smallest of the 8 images of the board, equal for all boards that are symmetric to each other. */
+    public static long canonical(long cells) {
+        long t = BitBoard.transpose(cells);
+        long m = mirror(cells);
+        long tm = mirror(t);
+        return min(min(min(cells, m), min(flip(cells), flip(m))),
+                min(min(t, tm), min(flip(t), flip(tm))));
+    }
+
+    private static long min(long a, long b) {
+        return Long.compareUnsigned(a, b) <= 0 ? a : b;
+    }
+
+    /** Reverses the cells of every row. */
+    static long mirror(long x) {
+        return (x & 0x000F000F000F000FL) << 12
+                | (x & 0x00F000F000F000F0L) << 4
+                | (x & 0x0F000F000F000F00L) >>> 4
+                | (x & 0xF000F000F000F000L) >>> 12;
+    }
+
+    /** Reverses the order of the rows. */
+    static long flip(long x) {
+        return x << 48
+                | (x & 0xFFFF0000L) << 16
+                | (x >>> 16) & 0xFFFF0000L
+                | x >>> 48;
+    }
+
+    private static Direction transpose(Direction direction) {
+        switch (direction) {
+            case up:
+                return Direction.left;
+            case down:
+                return Direction.right;
+            case left:
+                return Direction.up;
+            default:
+                return Direction.down;
+        }
+    }
+
+    private static Direction mirror(Direction direction) {
+        if (direction == Direction.left) {
+            return Direction.right;
+        }
+        return direction == Direction.right ? Direction.left : direction;
+    }
+
+    private static Direction flip(Direction direction) {
+        if (direction == Direction.up) {
+            return Direction.down;
+        }
+        return direction == Direction.down ? Direction.up : direction;
+    }
+}
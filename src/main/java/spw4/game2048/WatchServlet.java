@@ -0,0 +1,117 @@
+package spw4.game2048;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Streams a game to a spectator as Server-Sent Events: a {@code state} event
+ * with the full game (see {@link DeltaEncoder}) when the stream starts or the
+ * spectator fell behind, then a {@code delta} event for every change.
+ */
+@WebServlet(value = "/Game/watch", asyncSupported = true)
+public class WatchServlet extends HttpServlet {
+    private Spectators spectators;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        GameSessions sessions = (GameSessions) getServletContext().getAttribute(GameSessions.ATTRIBUTE);
+        if (sessions == null) {
+            throw new ServletException("Error: sessions are not available!");
+        }
+        spectators = sessions.getSpectators();
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        UUID id;
+        try {
+            id = UUID.fromString(String.valueOf(request.getParameter("id")));
+        }
+        catch (IllegalArgumentException e) {
+            sendText(response, HttpServletResponse.SC_BAD_REQUEST, "invalid request\n");
+            return;
+        }
+
+        response.setContentType("text/event-stream;charset=UTF-8");
+        response.setHeader("Cache-Control", "no-cache");
+        AsyncContext async = request.startAsync();
+        async.setTimeout(0);
+        ServletOutputStream out = response.getOutputStream();
+        // the listener goes first: the first write may already end the stream before subscribe returns
+        AtomicReference<Spectators.Subscription> holder = new AtomicReference<>();
+        AtomicBoolean ended = new AtomicBoolean();
+        async.addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+                end();
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                end();
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                end();
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+
+            private void end() {
+                ended.set(true);
+                Spectators.Subscription subscription = holder.get();
+                if (subscription != null) {
+                    subscription.close();
+                }
+            }
+        });
+        Spectators.Subscription subscription = spectators.subscribe(id, new Spectators.Sink() {
+            @Override
+            public void write(byte[] bytes) throws IOException {
+                out.write(bytes);
+                out.flush();
+            }
+
+            @Override
+            public void close() {
+                async.complete();
+            }
+        });
+        if (subscription == null) {
+            if (!ended.get()) {
+                response.reset();
+                sendText(response, HttpServletResponse.SC_NOT_FOUND, "unknown game or too many spectators\n");
+                async.complete();
+            }
+            return;
+        }
+        holder.set(subscription);
+        if (ended.get()) {
+            subscription.close();
+        }
+    }
+
+    private static void sendText(HttpServletResponse response, int status, String text) throws IOException {
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        response.setStatus(status);
+        response.setContentType("text/plain;charset=UTF-8");
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+}
@@ -0,0 +1,236 @@
+package spw4.game2048;
+
+/**
+ * Board for sizes 5 to 8 packed into one {@code long} per row: every cell is
+ * the 8-bit exponent of its tile, cell {@code (row, col)} sits in byte
+ * {@code col} of {@code rows[row]}. Rows are slid one at a time through a
+ * {@link LineSlider}, up/down moves run through an 8x8 byte transpose.
+ */
+public final class WideBitBoard implements Board {
+    static final int MIN_SIZE = 5;
+    static final int MAX_SIZE = 8;
+    static final int MAX_EXPONENT = 30;
+
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+
+    private static final long MAX_LANES = 0x0101010101010101L * MAX_EXPONENT;
+
+    private final int size;
+    private final long laneMask;
+    private final long neighbourMask;
+    private final long[] rows = new long[MAX_SIZE];
+    private final LineSlider slider;
+
+    public WideBitBoard(int size) {
+        if (size < MIN_SIZE || size > MAX_SIZE) {
+            throw new IllegalArgumentException("Error: " + size + " is not a valid size!");
+        }
+        this.size = size;
+        laneMask = 0x8080808080808080L >>> (8 * (MAX_SIZE - size));
+        neighbourMask = laneMask >>> 8;
+        slider = new LineSlider(size, MAX_EXPONENT);
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public int getValueAt(int row, int col) {
+        int exponent = (int) (rows[row] >>> (8 * col)) & 0xFF;
+        return exponent == 0 ? 0 : 1 << exponent;
+    }
+
+    @Override
+    public void setValueAt(int row, int col, int value) {
+        int shift = 8 * col;
+        rows[row] = (rows[row] & ~(0xFFL << shift)) | ((long) LineSlider.toExponent(value, MAX_EXPONENT) << shift);
+    }
+
+    @Override
+    public void clear() {
+        for (int row = 0; row < MAX_SIZE; row++) {
+            rows[row] = 0;
+        }
+    }
+
+    @Override
+    public boolean move(Direction direction, MoveResult result) {
+        result.reset(size);
+        boolean moved = false;
+        switch (direction) {
+            case up:
+                transpose(rows);
+                moved = moveRows(false, true, result);
+                transpose(rows);
+                break;
+            case down:
+                transpose(rows);
+                moved = moveRows(true, true, result);
+                transpose(rows);
+                break;
+            case left:
+                moved = moveRows(false, false, result);
+                break;
+            case right:
+                moved = moveRows(true, false, result);
+                break;
+        }
+        result.setMoved(moved);
+        return moved;
+    }
+
+    @Override
+    public int countEmpty() {
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            count += Long.bitCount(zeroBytes(rows[row]) & laneMask);
+        }
+        return count;
+    }
+
+    @Override
+    public int getEmptyCell(int index) {
+        for (int row = 0; row < size; row++) {
+            long empty = zeroBytes(rows[row]) & laneMask;
+            int count = Long.bitCount(empty);
+            if (index < count) {
+                for (int i = 0; i < index; i++) {
+                    empty &= empty - 1;
+                }
+                return row * size + (Long.numberOfTrailingZeros(empty) >>> 3);
+            }
+            index -= count;
+        }
+        throw new InvalidEmptyPosition("Error: Empty Position is not empty!");
+    }
+
+    @Override
+    public boolean hasEqualNeighbours() {
+        for (int row = 0; row < size; row++) {
+            long cells = rows[row];
+            if ((zeroBytes(cells ^ (cells >>> 8)) & neighbourMask) != 0) {
+                return true;
+            }
+            if (row + 1 < size && (zeroBytes(cells ^ rows[row + 1]) & laneMask) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int legalMoves() {
+        int moves = 0;
+        long emptyAbove = 0;
+        long occupiedAbove = 0;
+        for (int row = 0; row < size; row++) {
+            long cells = rows[row];
+            long empty = zeroBytes(cells) & laneMask;
+            long occupied = ~empty & laneMask;
+            long mergeable = occupied & ~zeroBytes(cells ^ MAX_LANES);
+            long pairs = zeroBytes(cells ^ (cells >>> 8)) & neighbourMask & mergeable;
+            if ((occupied & -(Long.lowestOneBit(empty) << 1)) != 0 || pairs != 0) {
+                moves |= Direction.left.mask();
+            }
+            if (empty != 0 && (occupied & (Long.highestOneBit(empty) - 1)) != 0 || pairs != 0) {
+                moves |= Direction.right.mask();
+            }
+            if ((occupied & emptyAbove) != 0) {
+                moves |= Direction.up.mask();
+            }
+            if ((empty & occupiedAbove) != 0) {
+                moves |= Direction.down.mask();
+            }
+            if (row > 0 && (zeroBytes(cells ^ rows[row - 1]) & mergeable) != 0) {
+                moves |= Direction.up.mask() | Direction.down.mask();
+            }
+            emptyAbove |= empty;
+            occupiedAbove |= occupied;
+        }
+        return moves;
+    }
+
+    @Override
+    public Board copy() {
+        WideBitBoard copy = new WideBitBoard(size);
+        System.arraycopy(rows, 0, copy.rows, 0, MAX_SIZE);
+        return copy;
+    }
+
+    @Override
+    public int packedLength() {
+        return size;
+    }
+
+    @Override
+    public void pack(long[] dst, int offset) {
+        System.arraycopy(rows, 0, dst, offset, size);
+    }
+
+    @Override
+    public void unpack(long[] src, int offset) {
+        System.arraycopy(src, offset, rows, 0, size);
+    }
+
+    /** Sets the top bit of every byte that is zero in {@code x}. */
+    static long zeroBytes(long x) {
+        return ~(((x & LOW_BITS) + LOW_BITS) | x | LOW_BITS);
+    }
+
+    /** Transposes the 8x8 byte matrix by swapping 4x4, 2x2 and 1x1 blocks. */
+    static void transpose(long[] m) {
+        for (int row = 0; row < MAX_SIZE; row += 2) {
+            long t = ((m[row] >>> 8) ^ m[row + 1]) & 0x00FF00FF00FF00FFL;
+            m[row] ^= t << 8;
+            m[row + 1] ^= t;
+        }
+        for (int block = 0; block < MAX_SIZE; block += 4) {
+            for (int row = block; row < block + 2; row++) {
+                long t = ((m[row] >>> 16) ^ m[row + 2]) & 0x0000FFFF0000FFFFL;
+                m[row] ^= t << 16;
+                m[row + 2] ^= t;
+            }
+        }
+        for (int row = 0; row < 4; row++) {
+            long t = ((m[row] >>> 32) ^ m[row + 4]) & 0x00000000FFFFFFFFL;
+            m[row] ^= t << 32;
+            m[row + 4] ^= t;
+        }
+    }
+
+    private boolean moveRows(boolean reverse, boolean columns, MoveResult result) {
+        boolean moved = false;
+        int[] line = slider.line;
+        for (int row = 0; row < size; row++) {
+            long cells = rows[row];
+            if (cells == 0) {
+                continue;
+            }
+            for (int i = 0; i < size; i++) {
+                int col = reverse ? size - 1 - i : i;
+                line[i] = (int) (cells >>> (8 * col)) & 0xFF;
+            }
+            slider.slideLeft();
+            long slid = 0;
+            for (int i = 0; i < size; i++) {
+                int col = reverse ? size - 1 - i : i;
+                slid |= (long) line[i] << (8 * col);
+                if (((cells >>> (8 * col)) & 0xFF) != 0) {
+                    int destination = reverse ? size - 1 - slider.destinations[i] : slider.destinations[i];
+                    if (columns) {
+                        result.setDestination(col * size + row, destination * size + row);
+                    }
+                    else {
+                        result.setDestination(row * size + col, row * size + destination);
+                    }
+                }
+            }
+            result.add(slider.score, slider.merges, slider.won);
+            moved |= slid != cells;
+            rows[row] = slid;
+        }
+        return moved;
+    }
+}
@@ -1,11 +1,13 @@
+<%@ page import="spw4.game2048.StaticAssets" trimDirectiveWhitespaces="true" %>
+<% StaticAssets assets = (StaticAssets) application.getAttribute(StaticAssets.ATTRIBUTE); %>
 <!DOCTYPE html>
 <html lang="en">
 <head>
     <meta charset="UTF-8">
     <title>2048</title>
-    <link href="css/bootstrap.min.css" rel="stylesheet"/>
-    <link href="icons/bootstrap-icons.css" rel="stylesheet"/>
-    <script src="js/bootstrap.min.js"></script>
+    <link href="<%= assets != null ? assets.versioned("css/bootstrap.min.css") : "css/bootstrap.min.css" %>" rel="stylesheet"/>
+    <link href="<%= assets != null ? assets.versioned("icons/bootstrap-icons.css") : "icons/bootstrap-icons.css" %>" rel="stylesheet"/>
+    <script src="<%= assets != null ? assets.versioned("js/bootstrap.min.js") : "js/bootstrap.min.js" %>"></script>
 </head>
 <body>
 <h1 class="m-5 text-center">Play 2048:</h1>
@@ -15,6 +17,18 @@
     <div class="col text-center"><a role="button" class="btn btn-danger w-75" href="Game?action=new">New Game</a></div>
     <div class="col-4"></div>
 </div>
+<div class="row">
+    <div class="col-4"></div>
+    <div class="col text-center pt-4">
+        <a role="button" class="btn btn-outline-secondary" href="Game?action=new&size=3">3x3</a>
+        <a role="button" class="btn btn-outline-secondary" href="Game?action=new&size=4">4x4</a>
+        <a role="button" class="btn btn-outline-secondary" href="Game?action=new&size=5">5x5</a>
+        <a role="button" class="btn btn-outline-secondary" href="Game?action=new&size=6">6x6</a>
+        <a role="button" class="btn btn-outline-secondary" href="Game?action=new&size=7">7x7</a>
+        <a role="button" class="btn btn-outline-secondary" href="Game?action=new&size=8">8x8</a>
+    </div>
+    <div class="col-4"></div>
+</div>
 
 </body>
 </html>
\ No newline at end of file
@@ -0,0 +1,78 @@
+// Plays the moves of the game page through the move API and updates the page
+// in place; without this script the buttons are plain links to the servlet.
+(function () {
+    var id = document.body.getAttribute('data-game');
+    if (!id || !window.fetch) {
+        return;
+    }
+    var masks = {up: 1, down: 2, left: 4, right: 8};
+    var busy = false;
+
+    function setEnabled(button, enabled) {
+        button.classList.toggle('disabled', !enabled);
+        button.setAttribute('aria-disabled', String(!enabled));
+    }
+
+    function update(state) {
+        if (state.over) {
+            // the servlet renders the end of the game
+            window.location.href = 'Game?id=' + id;
+            return;
+        }
+        for (var i = 0; i < state.changed.length; i += 2) {
+            document.getElementById('cell-' + state.changed[i]).textContent = state.changed[i + 1];
+        }
+        document.getElementById('score').textContent = state.score;
+        var health = document.getElementById('health');
+        health.style.width = state.health + '%';
+        health.setAttribute('aria-valuenow', state.health);
+        health.textContent = 'Health ' + state.health + '%';
+        health.classList.remove('bg-success', 'bg-warning', 'bg-danger');
+        health.classList.add(state.health >= 60 ? 'bg-success' : state.health >= 30 ? 'bg-warning' : 'bg-danger');
+        document.querySelectorAll('[data-action]').forEach(function (button) {
+            var action = button.getAttribute('data-action');
+            setEnabled(button, action === 'undo' ? state.undo : action === 'redo' ? state.redo : (state.legal & masks[action]) !== 0);
+        });
+    }
+
+    function act(action) {
+        if (busy) {
+            return;
+        }
+        busy = true;
+        fetch('api/game?id=' + id + '&action=' + action, {method: 'POST'})
+            .then(function (response) {
+                if (!response.ok) {
+                    throw new Error(response.status);
+                }
+                return response.json();
+            })
+            .then(update)
+            .catch(function () {
+                // resync from the server, the action may or may not have been applied
+                window.location.href = 'Game?id=' + id;
+            })
+            .finally(function () {
+                busy = false;
+            });
+    }
+
+    document.querySelectorAll('[data-action]').forEach(function (button) {
+        button.addEventListener('click', function (event) {
+            event.preventDefault();
+            if (!button.classList.contains('disabled')) {
+                act(button.getAttribute('data-action'));
+            }
+        });
+    });
+    document.addEventListener('keydown', function (event) {
+        var action = event.key.indexOf('Arrow') === 0 ? event.key.substring(5).toLowerCase() : null;
+        if (action && masks[action]) {
+            event.preventDefault();
+            var button = document.querySelector('[data-action="' + action + '"]');
+            if (!button.classList.contains('disabled')) {
+                act(action);
+            }
+        }
+    });
+})();
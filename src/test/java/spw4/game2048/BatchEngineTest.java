@@ -0,0 +1,80 @@
+package spw4.game2048;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchEngineTest {
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    @Test
+    void LanesPlayLikeGames() {
+        BatchEngine engine = new BatchEngine(64, 1);
+        Game[] games = new Game[engine.lanes()];
+        for (int lane = 0; lane < games.length; lane++) {
+            games[lane] = new Game(4, RandomSource.create(engine.getSeed(lane)));
+            games[lane].initialize();
+            assertEquals(BitBoard.pack(games[lane].getBoard()), engine.getCells(lane));
+        }
+        SplittableRandom random = new SplittableRandom(2);
+        byte[] directions = new byte[engine.lanes()];
+        for (int step = 0; step < 2000 && engine.running() > 0; step++) {
+            for (int lane = 0; lane < directions.length; lane++) {
+                directions[lane] = (byte) random.nextInt(DIRECTIONS.length);
+            }
+            int moved = engine.move(directions);
+            int expected = 0;
+            for (int lane = 0; lane < games.length; lane++) {
+                if (!games[lane].isOver() && games[lane].move(DIRECTIONS[directions[lane]]).isMoved()) {
+                    expected++;
+                }
+                assertEquals(BitBoard.pack(games[lane].getBoard()), engine.getCells(lane));
+                assertEquals(games[lane].getScore(), engine.getScore(lane));
+                assertEquals(games[lane].isOver(), engine.isOver(lane));
+                assertEquals(games[lane].isWon(), engine.isWon(lane));
+                assertEquals(games[lane].getLegalMoves(), engine.getLegalMoves(lane));
+            }
+            assertEquals(expected, moved);
+        }
+        assertEquals(0, engine.running());
+    }
+
+    @Test
+    void SameDirectionForAllLanes() {
+        BatchEngine engine = new BatchEngine(16, 3);
+        long[] before = new long[engine.lanes()];
+        for (int lane = 0; lane < before.length; lane++) {
+            before[lane] = engine.getCells(lane);
+        }
+        int moved = engine.move(Direction.left);
+        int changed = 0;
+        for (int lane = 0; lane < before.length; lane++) {
+            if (engine.getMoves(lane) == 1) {
+                changed++;
+                assertNotEquals(before[lane], engine.getCells(lane));
+            }
+            else {
+                assertEquals(before[lane], engine.getCells(lane));
+            }
+        }
+        assertEquals(changed, moved);
+    }
+
+    @Test
+    void RestartStartsNewGame() {
+        BatchEngine engine = new BatchEngine(1, 4);
+        long seed = engine.getSeed(0);
+        while (!engine.isOver(0)) {
+            engine.move(DIRECTIONS[Integer.numberOfTrailingZeros(engine.getLegalMoves(0))]);
+        }
+        engine.restart(0);
+        assertAll(
+                () -> assertNotEquals(seed, engine.getSeed(0)),
+                () -> assertEquals(0, engine.getScore(0)),
+                () -> assertEquals(2, BitBoard.countEmpty(0) - BitBoard.countEmpty(engine.getCells(0))),
+                () -> assertFalse(engine.isOver(0))
+        );
+    }
+}
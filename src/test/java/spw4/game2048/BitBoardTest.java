@@ -0,0 +1,93 @@
+package spw4.game2048;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BitBoardTest {
+
+    @Test
+    void SetAndGetValues() {
+        BitBoard board = new BitBoard();
+        board.setValueAt(0, 0, 2);
+        board.setValueAt(1, 2, 1024);
+        board.setValueAt(3, 3, 32768);
+        assertAll(
+                () -> assertEquals(2, board.getValueAt(0, 0)),
+                () -> assertEquals(1024, board.getValueAt(1, 2)),
+                () -> assertEquals(32768, board.getValueAt(3, 3)),
+                () -> assertEquals(0, board.getValueAt(2, 1)),
+                () -> assertEquals(13, board.countEmpty())
+        );
+    }
+
+    @Test
+    void SetInvalidValue() {
+        BitBoard board = new BitBoard();
+        assertThrows(IllegalArgumentException.class, () -> board.setValueAt(0, 0, 3));
+    }
+
+    @Test
+    void TransposeSwapsRowsAndColumns() {
+        BitBoard board = new BitBoard();
+        for(int row = 0; row < 4; row++) {
+            for(int col = 0; col < 4; col++) {
+                board.setValueAt(row, col, 1 << (row * 4 + col) % 15 + 1);
+            }
+        }
+        BitBoard transposed = new BitBoard(BitBoard.transpose(board.getCells()));
+        for(int row = 0; row < 4; row++) {
+            for(int col = 0; col < 4; col++) {
+                assertEquals(board.getValueAt(row, col), transposed.getValueAt(col, row));
+            }
+        }
+    }
+
+    @Test
+    void DetectsEqualNeighbours() {
+        int[][] blocked = {
+                {2, 4, 2, 4},
+                {4, 2, 4, 2},
+                {2, 4, 2, 4},
+                {4, 2, 4, 2}
+        };
+        Game game = new Game();
+        game.setGameBoard(blocked);
+        assertFalse(game.getBoard().hasEqualNeighbours());
+        game.getBoard().setValueAt(3, 3, 4);
+        assertTrue(game.getBoard().hasEqualNeighbours());
+    }
+
+    @Test
+    void PlaysIdenticalToArrayBoard() {
+        Direction[] directions = Direction.values();
+        for(long seed = 0; seed < 200; seed++) {
+            Game bitGame = new Game(new BitBoard(), new Random(seed));
+            Game arrayGame = new Game(new ArrayBoard(4), new Random(seed));
+            bitGame.initialize();
+            arrayGame.initialize();
+            Random moves = new Random(seed);
+            while(!arrayGame.isOver()) {
+                Direction direction = directions[moves.nextInt(directions.length)];
+                MoveResult bitResult = bitGame.move(direction);
+                MoveResult arrayResult = arrayGame.move(direction);
+                assertEquals(arrayResult.isMoved(), bitResult.isMoved());
+                assertEquals(arrayResult.getMerges(), bitResult.getMerges());
+                assertEquals(arrayResult.getScoreDelta(), bitResult.getScoreDelta());
+                assertEquals(arrayResult.getSpawnedValue(), bitResult.getSpawnedValue());
+                for(int row = 0; row < 4; row++) {
+                    for(int col = 0; col < 4; col++) {
+                        assertEquals(arrayResult.getDestination(row, col), bitResult.getDestination(row, col));
+                    }
+                }
+                assertEquals(arrayGame.toString(), bitGame.toString());
+                assertEquals(arrayGame.getScore(), bitGame.getScore());
+                assertEquals(arrayGame.getNumbersCount(), bitGame.getNumbersCount());
+                assertEquals(arrayGame.isOver(), bitGame.isOver());
+                assertEquals(arrayGame.isWon(), bitGame.isWon());
+            }
+        }
+    }
+}
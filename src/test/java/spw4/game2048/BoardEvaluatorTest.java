@@ -0,0 +1,97 @@
+package spw4.game2048;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoardEvaluatorTest {
+    private static Game game(int[][] board) {
+        Game game = new Game();
+        game.setGameBoard(board);
+        return game;
+    }
+
+    @Test
+    void Features() {
+        int[][] board = {
+                {2, 2, 4, 8},
+                {0, 0, 0, 4},
+                {0, 0, 0, 0},
+                {0, 0, 0, 0}
+        };
+        Evaluation evaluation = BoardEvaluator.evaluate(game(board));
+        assertAll(
+                () -> assertEquals(11, evaluation.getEmptyCells()),
+                () -> assertEquals(1, evaluation.getMerges()),
+                () -> assertEquals(-3, evaluation.getSmoothness(), 1e-9),
+                () -> assertEquals(0, evaluation.getMonotonicity(), 1e-9),
+                () -> assertEquals(1.0, evaluation.getHealth(), 1e-9)
+        );
+    }
+
+    @Test
+    void OutOfOrderTilesArePenalized() {
+        int[][] sorted = {
+                {2, 4, 8, 16},
+                {0, 0, 0, 0},
+                {0, 0, 0, 0},
+                {0, 0, 0, 0}
+        };
+        int[][] unsorted = {
+                {4, 16, 2, 8},
+                {0, 0, 0, 0},
+                {0, 0, 0, 0},
+                {0, 0, 0, 0}
+        };
+        assertTrue(BoardEvaluator.evaluate(game(unsorted)).getMonotonicity() < BoardEvaluator.evaluate(game(sorted)).getMonotonicity());
+        assertTrue(BoardEvaluator.evaluate(game(unsorted)).getScore() < BoardEvaluator.evaluate(game(sorted)).getScore());
+    }
+
+    @Test
+    void TablesMatchLineByLine() {
+        SplittableRandom random = new SplittableRandom(4);
+        for (int i = 0; i < 200; i++) {
+            int[][] board = new int[4][4];
+            for (int[] row : board) {
+                for (int col = 0; col < 4; col++) {
+                    row[col] = random.nextInt(3) == 0 ? 0 : 2 << random.nextInt(11);
+                }
+            }
+            Evaluation packed = BoardEvaluator.evaluate(game(board));
+            ArrayBoard array = new ArrayBoard(4);
+            for (int row = 0; row < 4; row++) {
+                for (int col = 0; col < 4; col++) {
+                    array.setValueAt(row, col, board[row][col]);
+                }
+            }
+            Evaluation looped = BoardEvaluator.evaluate(array);
+            assertEquals(looped.getScore(), packed.getScore(), 1e-6);
+            assertEquals(looped.getMonotonicity(), packed.getMonotonicity(), 1e-6);
+            assertEquals(looped.getSmoothness(), packed.getSmoothness(), 1e-6);
+            assertEquals(looped.getEmptyCells(), packed.getEmptyCells());
+            assertEquals(looped.getMerges(), packed.getMerges());
+        }
+    }
+
+    @Test
+    void ScoreIsSymmetric() {
+        SplittableRandom random = new SplittableRandom(9);
+        for (int i = 0; i < 100; i++) {
+            long cells = random.nextLong() & 0x7777777777777777L;
+            for (Symmetry symmetry : Symmetry.values()) {
+                assertEquals(BoardEvaluator.score(cells), BoardEvaluator.score(symmetry.apply(cells)), 1e-6);
+            }
+        }
+    }
+
+    @Test
+    void OtherSizes() {
+        Game game = new Game(6, RandomSource.create(1));
+        game.initialize();
+        Evaluation evaluation = BoardEvaluator.evaluate(game);
+        assertEquals(34, evaluation.getEmptyCells());
+        assertEquals(1.0, evaluation.getHealth(), 1e-9);
+    }
+}
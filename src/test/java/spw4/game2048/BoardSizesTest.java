@@ -0,0 +1,116 @@
+package spw4.game2048;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoardSizesTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {2, 3, 4, 5, 6, 7, 8, 9})
+    void CreatesBoardOfRequestedSize(int size) {
+        Game game = new Game(size);
+        game.initialize();
+        assertAll(
+                () -> assertEquals(size, game.getSize()),
+                () -> assertEquals(size * size - 2, game.getBoard().countEmpty()),
+                () -> assertEquals(2, game.getNumbersCount())
+        );
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {3, 5, 6, 7, 8})
+    void PlaysIdenticalToArrayBoard(int size) {
+        Direction[] directions = Direction.values();
+        for(long seed = 0; seed < 20; seed++) {
+            Game packedGame = new Game(size, new Random(seed));
+            Game arrayGame = new Game(new ArrayBoard(size), new Random(seed));
+            packedGame.initialize();
+            arrayGame.initialize();
+            Random moves = new Random(seed);
+            for(int step = 0; step < 2000 && !arrayGame.isOver(); step++) {
+                Direction direction = directions[moves.nextInt(directions.length)];
+                MoveResult packedResult = packedGame.move(direction);
+                MoveResult arrayResult = arrayGame.move(direction);
+                assertEquals(arrayGame.toString(), packedGame.toString());
+                assertEquals(arrayGame.getScore(), packedGame.getScore());
+                assertEquals(arrayGame.isOver(), packedGame.isOver());
+                assertEquals(arrayResult.isMoved(), packedResult.isMoved());
+                for(int row = 0; row < size; row++) {
+                    for(int col = 0; col < size; col++) {
+                        assertEquals(arrayResult.getDestination(row, col), packedResult.getDestination(row, col));
+                    }
+                }
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {2, 3, 4, 5, 6, 8, 9})
+    void LegalMovesMatchMoves(int size) {
+        Direction[] directions = Direction.values();
+        MoveResult probe = new MoveResult();
+        for(long seed = 0; seed < 20; seed++) {
+            Game game = new Game(size, new Random(seed));
+            game.initialize();
+            Random moves = new Random(seed);
+            for(int step = 0; step < 2000 && !game.isOver(); step++) {
+                for(Direction direction : directions) {
+                    boolean moved = game.getBoard().copy().move(direction, probe);
+                    assertEquals(moved, game.isLegal(direction));
+                    assertEquals(moved, (game.getBoard().legalMoves() & direction.mask()) != 0);
+                }
+                game.move(directions[moves.nextInt(directions.length)]);
+            }
+            assertEquals(game.isOver() && !game.isWon(), game.getLegalMoves() == 0);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {3, 5, 8})
+    void DetectsEqualNeighbours(int size) {
+        Board board = Board.create(size);
+        for(int row = 0; row < size; row++) {
+            for(int col = 0; col < size; col++) {
+                board.setValueAt(row, col, (row + col) % 2 == 0 ? 2 : 4);
+            }
+        }
+        assertFalse(board.hasEqualNeighbours());
+        board.setValueAt(size - 1, size - 1, board.getValueAt(size - 1, size - 2));
+        assertTrue(board.hasEqualNeighbours());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {12, 16})
+    void ReportsDestinationsBeyondByteRange(int size) {
+        Board board = Board.create(size);
+        for(int col = 0; col < size; col++) {
+            board.setValueAt(0, col, 2 << col % 3);
+        }
+        MoveResult result = new MoveResult();
+        assertTrue(board.move(Direction.down, result));
+        for(int col = 0; col < size; col++) {
+            assertEquals((size - 1) * size + col, result.getDestination(0, col));
+            assertEquals(2 << col % 3, board.getValueAt(size - 1, col));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {3, 4, 6})
+    void GameOnFilledBoardCanMove(int size) {
+        Board board = Board.create(size);
+        board.setValueAt(0, 0, 2);
+        board.setValueAt(0, 1, 2);
+        board.setValueAt(size - 1, 0, 4);
+        Game game = new Game(board, RandomSource.create(1));
+        assertEquals(3, game.getNumbersCount());
+        assertEquals(board.legalMoves(), game.getLegalMoves());
+        MoveResult result = game.move(Direction.left);
+        assertTrue(result.isMoved());
+        assertEquals(4, game.getValueAt(0, 0));
+        assertEquals(3, game.getNumbersCount());
+    }
+}
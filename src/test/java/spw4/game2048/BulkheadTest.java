@@ -0,0 +1,97 @@
+package spw4.game2048;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BulkheadTest {
+    @Test
+    void RunsTasks() throws InterruptedException {
+        Bulkhead bulkhead = new Bulkhead("test", 2, 100);
+        CountDownLatch done = new CountDownLatch(50);
+        AtomicInteger rejected = new AtomicInteger();
+        for (int i = 0; i < 50; i++) {
+            assertTrue(bulkhead.submit(done::countDown, 10_000, rejected::incrementAndGet));
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(0, rejected.get());
+        bulkhead.close();
+    }
+
+    @Test
+    void RejectsWhenQueueIsFull() throws InterruptedException {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger ran = new AtomicInteger();
+        bulkhead.submit(() -> {
+            started.countDown();
+            awaitQuietly(release);
+        }, 10_000, rejected::incrementAndGet);
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        assertTrue(bulkhead.submit(ran::incrementAndGet, 10_000, rejected::incrementAndGet));
+        assertFalse(bulkhead.submit(ran::incrementAndGet, 10_000, rejected::incrementAndGet));
+        assertEquals(1, rejected.get());
+        assertEquals(1, bulkhead.getRejections());
+        release.countDown();
+        bulkhead.close();
+    }
+
+    @Test
+    void TimesOutWaitingTasksWithoutRunningThem() throws InterruptedException {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 10);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch timedOut = new CountDownLatch(1);
+        AtomicInteger ran = new AtomicInteger();
+        bulkhead.submit(() -> awaitQuietly(release), 10_000, () -> fail("running task timed out"));
+        bulkhead.submit(ran::incrementAndGet, 20, timedOut::countDown);
+        assertTrue(timedOut.await(10, TimeUnit.SECONDS));
+        assertEquals(1, bulkhead.getTimeouts());
+
+        CountDownLatch after = new CountDownLatch(1);
+        release.countDown();
+        bulkhead.submit(after::countDown, 10_000, () -> fail("rejected"));
+        assertTrue(after.await(10, TimeUnit.SECONDS));
+        assertEquals(0, ran.get());
+        bulkhead.close();
+    }
+
+    @Test
+    void SlowWorkDoesNotHoldUpOtherBulkhead() throws InterruptedException {
+        Bulkhead compute = new Bulkhead("compute", 1, 4);
+        Bulkhead moves = new Bulkhead("moves", 2, 100);
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 6; i++) {
+            compute.submit(() -> awaitQuietly(release), 10_000, () -> { });
+        }
+        assertEquals(1, compute.getRejections());
+        CountDownLatch done = new CountDownLatch(20);
+        for (int i = 0; i < 20; i++) {
+            moves.submit(done::countDown, 10_000, () -> { });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        release.countDown();
+        compute.close();
+        moves.close();
+    }
+
+    @Test
+    void ChecksArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new Bulkhead("test", 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new Bulkhead("test", 1, 0));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
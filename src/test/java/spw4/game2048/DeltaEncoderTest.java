@@ -0,0 +1,109 @@
+package spw4.game2048;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeltaEncoderTest {
+    private static final UUID ID = new UUID(1, 2);
+
+    private static Game game(int[][] board) {
+        Game game = new Game(board.length, RandomSource.create(5));
+        game.setGameBoard(board);
+        game.enableHistory(4);
+        return game;
+    }
+
+    @Test
+    void JsonDeltaHoldsChangedCellsAndSpawn() {
+        Game game = game(new int[][] {{2, 2, 0}, {0, 0, 0}, {0, 0, 4}});
+        byte[] before = DeltaEncoder.capture(game);
+        MoveResult result = game.move(Direction.left);
+        String json = DeltaEncoder.toJson(ID, game, before, result);
+
+        int spawn = result.getSpawnedRow() * 3 + result.getSpawnedCol();
+        assertTrue(json.contains("\"score\":4"), json);
+        assertTrue(json.contains("\"moved\":true"), json);
+        assertTrue(json.contains("\"undo\":true,\"redo\":false"), json);
+        assertTrue(json.contains("\"spawn\":[" + spawn + "," + result.getSpawnedValue() + "]"), json);
+        assertTrue(json.contains("\"changed\":["), json);
+        assertTrue(json.contains("0,4"), json);
+        assertTrue(json.contains("1,0"), json);
+        assertTrue(json.contains("8,0"), json);
+        assertTrue(json.contains("6,4"), json);
+        assertTrue(json.contains(spawn + "," + result.getSpawnedValue()), json);
+        assertFalse(json.contains("\"board\""), json);
+    }
+
+    @Test
+    void JsonFullStateHoldsEveryCell() {
+        Game game = game(new int[][] {{2, 0}, {0, 8}});
+        String json = DeltaEncoder.toJson(ID, game, null, null);
+        assertTrue(json.startsWith("{\"id\":\"" + ID + "\",\"size\":2"), json);
+        assertTrue(json.contains("\"spawn\":null"), json);
+        assertTrue(json.endsWith("\"board\":[2,0,0,8]}"), json);
+    }
+
+    @Test
+    void BinaryDeltaMatchesJson() {
+        Game game = game(new int[][] {{0, 0, 2, 2}, {0, 0, 0, 0}, {0, 0, 0, 0}, {0, 0, 0, 0}});
+        byte[] before = DeltaEncoder.capture(game);
+        MoveResult result = game.move(Direction.left);
+        ByteBuffer frame = ByteBuffer.wrap(DeltaEncoder.toBinary(ID, game, before, result));
+
+        int flags = frame.get();
+        assertEquals(0, flags & DeltaEncoder.FULL);
+        assertNotEquals(0, flags & DeltaEncoder.MOVED);
+        assertNotEquals(0, flags & DeltaEncoder.CAN_UNDO);
+        assertEquals(0, flags & DeltaEncoder.OVER);
+        assertEquals(4, frame.get());
+        assertEquals(game.getLegalMoves(), frame.get());
+        assertEquals(Integer.numberOfTrailingZeros(result.getSpawnedValue()), frame.get());
+        assertEquals(result.getSpawnedRow() * 4 + result.getSpawnedCol(), frame.get() & 0xFF);
+        frame.get();
+        assertEquals(4, frame.getInt());
+
+        int count = frame.getShort();
+        assertEquals(count * 2, frame.remaining());
+        int[][] board = new int[4][4];
+        board[0][2] = 2;
+        board[0][3] = 2;
+        for (int i = 0; i < count; i++) {
+            int cell = frame.get() & 0xFF;
+            int exponent = frame.get();
+            board[cell / 4][cell % 4] = exponent == 0 ? 0 : 1 << exponent;
+        }
+        assertArrayEquals(game.getGameBoard(), board);
+        assertTrue(count <= 4);
+    }
+
+    @Test
+    void BinaryFullStateOfLargestBoard() {
+        Game game = new Game(16, RandomSource.create(3));
+        game.initialize();
+        ByteBuffer frame = ByteBuffer.wrap(DeltaEncoder.toBinary(ID, game, null, null));
+        assertEquals(10 + 16 + 256, frame.remaining());
+        assertEquals(DeltaEncoder.FULL, frame.get() & DeltaEncoder.FULL);
+        assertEquals(16, frame.get());
+        frame.position(10);
+        assertEquals(ID, new UUID(frame.getLong(), frame.getLong()));
+        byte[] cells = new byte[256];
+        frame.get(cells);
+        assertArrayEquals(DeltaEncoder.capture(game), cells);
+    }
+
+    @Test
+    void UndoIsADeltaToo() {
+        Game game = game(new int[][] {{2, 2}, {0, 0}});
+        game.move(Direction.left);
+        byte[] before = DeltaEncoder.capture(game);
+        assertTrue(game.undo());
+        String json = DeltaEncoder.toJson(ID, game, before, null);
+        assertTrue(json.contains("\"moved\":false"), json);
+        assertTrue(json.contains("\"redo\":true"), json);
+        assertTrue(json.contains("\"changed\":[0,2,1,2"), json);
+    }
+}
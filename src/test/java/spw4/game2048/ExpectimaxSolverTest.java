@@ -0,0 +1,82 @@
+package spw4.game2048;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpectimaxSolverTest {
+    private final ExpectimaxSolver solver =
+            new ExpectimaxSolver(ForkJoinPool.commonPool(), ExpectimaxSolver::evaluate, 2, ExpectimaxSolver.DEFAULT_CUTOFF);
+
+    @Test
+    void DoesNotMoveTheGame() {
+        Game game = new Game();
+        game.initialize();
+        String before = game.toString();
+        Hint hint = solver.findBestMove(game);
+        assertAll(
+                () -> assertNotNull(hint),
+                () -> assertEquals(before, game.toString()),
+                () -> assertEquals(0, game.getScore())
+        );
+    }
+
+    @Test
+    void ChoosesTheOnlyPossibleMove() {
+        int[][] board = {
+                {2, 4, 2, 4},
+                {4, 2, 4, 2},
+                {2, 4, 2, 4},
+                {4, 2, 4, 0}
+        };
+        Game game = new Game();
+        game.setGameBoard(board);
+        Hint hint = solver.findBestMove(game);
+        assertTrue(hint.getDirection() == Direction.right || hint.getDirection() == Direction.down);
+    }
+
+    @Test
+    void ReturnsNullWhenNoMoveIsPossible() {
+        int[][] board = {
+                {2, 4, 2, 4},
+                {4, 2, 4, 2},
+                {2, 4, 2, 4},
+                {4, 2, 4, 2}
+        };
+        Game game = new Game();
+        game.setGameBoard(board);
+        assertNull(solver.findBestMove(game));
+    }
+
+    @Test
+    void RejectsOtherSizes() {
+        assertThrows(IllegalArgumentException.class, () -> solver.findBestMove(new Game(5)));
+    }
+
+    @Test
+    void TimedSearchMatchesFullSearchWithinBudget() {
+        Game game = new Game(RandomSource.create(5));
+        game.initialize();
+        long cells = BitBoard.pack(game.getBoard());
+        Hint full = solver.findBestMove(cells);
+        Hint timed = solver.findBestMove(cells, 60_000);
+        assertEquals(full.getDirection(), timed.getDirection());
+        assertEquals(full.getExpectedValue(), timed.getExpectedValue(), 1e-9);
+    }
+
+    @Test
+    void TimedSearchStopsAtTheDeadline() {
+        ExpectimaxSolver deep = new ExpectimaxSolver(ForkJoinPool.commonPool(), ExpectimaxSolver::evaluate, 12, 0);
+        Game game = new Game(RandomSource.create(5));
+        game.initialize();
+        long start = System.nanoTime();
+        Hint hint = deep.findBestMove(BitBoard.pack(game.getBoard()), 100);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        assertNotNull(hint);
+        assertTrue(game.isLegal(hint.getDirection()));
+        assertTrue(millis < 2000, millis + " ms");
+        assertNotNull(deep.findBestMove(BitBoard.pack(game.getBoard()), 0));
+    }
+}
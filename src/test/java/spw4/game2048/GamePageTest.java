@@ -0,0 +1,127 @@
+package spw4.game2048;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GamePageTest {
+    private static String render(UUID id, Game game) {
+        GamePage.Buffer buffer = new GamePage.Buffer();
+        GamePage.render(id, game, null, buffer);
+        return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void RendersCellsScoreAndButtons() {
+        Game game = new Game(3, RandomSource.create(1));
+        game.setGameBoard(new int[][] {{2, 0, 0}, {0, 0, 0}, {0, 0, 1024}});
+        game.enableHistory(2);
+        UUID id = UUID.randomUUID();
+        String page = render(id, game);
+
+        assertTrue(page.startsWith("<!DOCTYPE html>\n"));
+        assertTrue(page.endsWith("</html>\n"));
+        assertTrue(page.contains("<body data-game=\"" + id + "\">"));
+        assertTrue(page.contains("<span id=\"score\">0</span>"));
+        assertTrue(page.contains("<div class=\"col mt-1 ml-1 bg-light\" id=\"cell-0\">2</div>"));
+        assertTrue(page.contains("<div class=\"col mt-1 ml-1 mb-1 mr-1 bg-light\" id=\"cell-8\">1024</div>"));
+        assertTrue(page.contains("href=\"Game?id=" + id + "&action=right\" data-action=\"right\""));
+        assertTrue(page.contains("aria-disabled=\"true\" data-action=\"undo\">Undo</a>"));
+        assertTrue(page.contains("href=\"Game?action=new&size=3\""));
+        assertFalse(page.contains("YOU"));
+    }
+
+    @Test
+    void RendersEndOfGameAndHistory() {
+        Game game = new Game(2, RandomSource.create(1));
+        game.setGameBoard(new int[][] {{1024, 1024}, {0, 0}});
+        game.enableHistory(2);
+        game.move(Direction.left);
+        String page = render(new UUID(0, 255), game);
+
+        assertTrue(page.contains("YOU WIN"));
+        assertTrue(page.contains("<span id=\"score\">2048</span>"));
+        assertTrue(page.contains("aria-disabled=\"true\" data-action=\"left\""));
+        assertTrue(page.contains("href=\"Game?id=00000000-0000-0000-0000-0000000000ff&action=undo\""));
+    }
+
+    @Test
+    void BufferIsReusedAndWritesExactLength() throws IOException {
+        GamePage.Buffer buffer = new GamePage.Buffer();
+        Game large = new Game(16, RandomSource.create(2));
+        large.initialize();
+        GamePage.render(UUID.randomUUID(), large, null, buffer);
+        int largeLength = buffer.length();
+
+        Game small = new Game(2, RandomSource.create(2));
+        small.initialize();
+        UUID id = UUID.randomUUID();
+        GamePage.render(id, small, null, buffer);
+        assertTrue(buffer.length() < largeLength);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        buffer.writeTo(out);
+        assertEquals(buffer.length(), out.size());
+        assertEquals(render(id, small), out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void EtagFollowsWhatThePageShows() {
+        Game game = new Game(4, RandomSource.create(9));
+        game.setGameBoard(new int[][] {{2, 4, 8, 16}, {0, 0, 0, 0}, {0, 0, 0, 0}, {0, 0, 0, 0}});
+        game.enableHistory(4);
+        UUID id = UUID.randomUUID();
+        String initial = GamePage.etag(id, game);
+
+        assertTrue(initial.matches("\"[0-9a-f]{16}\""));
+        assertEquals(initial, GamePage.etag(id, game));
+        assertNotEquals(initial, GamePage.etag(UUID.randomUUID(), game));
+
+        game.move(Direction.left);
+        assertEquals(initial, GamePage.etag(id, game));
+
+        game.move(Direction.down);
+        String moved = GamePage.etag(id, game);
+        assertNotEquals(initial, moved);
+
+        game.undo();
+        assertNotEquals(initial, GamePage.etag(id, game));
+        game.redo();
+        assertEquals(moved, GamePage.etag(id, game));
+    }
+
+    @Test
+    void MatchesIfNoneMatchLists() {
+        String tag = "\"00000000000000ff\"";
+        assertTrue(GamePage.matches(tag, tag));
+        assertTrue(GamePage.matches("\"1\", " + tag, tag));
+        assertTrue(GamePage.matches("W/" + tag, tag));
+        assertTrue(GamePage.matches(" * ", tag));
+        assertFalse(GamePage.matches(null, tag));
+        assertFalse(GamePage.matches("\"00000000000000fe\"", tag));
+    }
+
+    @Test
+    void LinksVersionedAssetsOnlyWhenGiven() {
+        Game game = new Game(2, RandomSource.create(3));
+        game.initialize();
+        UUID id = UUID.randomUUID();
+        StaticAssets assets = new StaticAssets();
+        GamePage.Buffer buffer = new GamePage.Buffer();
+        GamePage.render(id, game, assets, buffer);
+        assertEquals(render(id, game), new String(buffer.toByteArray(), StandardCharsets.UTF_8));
+
+        StaticAssets.Asset script = assets.add("/js/game.js", "application/javascript",
+                "update();".getBytes(StandardCharsets.UTF_8), null);
+        GamePage.render(id, game, assets, buffer);
+        String page = new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(page.contains("<script src=\"js/game.js?v=" + script.getHash() + "\" defer>"));
+        assertTrue(page.contains("<link href=\"css/bootstrap.min.css\""));
+        assertTrue(render(id, game).contains("<script src=\"js/game.js\" defer>"));
+    }
+}
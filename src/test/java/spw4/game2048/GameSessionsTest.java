@@ -0,0 +1,88 @@
+package spw4.game2048;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameSessionsTest {
+    @TempDir
+    Path dir;
+    private SessionStore store;
+    private GameSessions sessions;
+
+    @BeforeEach
+    void open() throws IOException {
+        store = new SessionStore(dir.resolve("sessions"), 16, 8);
+        SessionJournal journal = new SessionJournal(dir.resolve("journal"), store);
+        journal.recover();
+        sessions = new GameSessions(store, journal, new SessionRegistry(store, GameSessions.HISTORY_DEPTH), 1);
+    }
+
+    @AfterEach
+    void close() throws IOException {
+        sessions.close();
+    }
+
+    @Test
+    void ParsesMoves() {
+        assertArrayEquals(new Direction[] {Direction.left, Direction.left, Direction.up, Direction.right, Direction.down},
+                GameSessions.parseMoves("LLuRd"));
+        assertEquals(0, GameSessions.parseMoves("").length);
+        assertThrows(IllegalArgumentException.class, () -> GameSessions.parseMoves("LX"));
+        assertThrows(IllegalArgumentException.class, () -> GameSessions.parseMoves(null));
+        assertThrows(IllegalArgumentException.class, () -> GameSessions.parseMoves("L".repeat(GameSessions.MAX_BATCH + 1)));
+    }
+
+    @Test
+    void BatchMatchesSingleMoves() throws IOException {
+        UUID batched = sessions.create(4);
+        long seed = sessions.read(batched, Game::getSeed);
+        Game single = new MoveLog(4, seed).newGame();
+        Direction[] moves = GameSessions.parseMoves("LLURDLURDDLLRUUD");
+
+        boolean[] moved = sessions.update(batched, game -> sessions.actAll(batched, game, moves, -1));
+        for (int i = 0; i < moves.length; i++) {
+            assertEquals(single.move(moves[i]).isMoved(), moved[i]);
+        }
+        assertArrayEquals(single.getGameBoard(), sessions.read(batched, Game::getGameBoard));
+        assertEquals(single.getScore(), sessions.read(batched, Game::getScore));
+    }
+
+    @Test
+    void RetriedBatchIsNotAppliedTwice() throws IOException {
+        UUID id = sessions.create(4);
+        Direction[] moves = GameSessions.parseMoves("LURD");
+        assertNotNull(sessions.update(id, game -> sessions.actAll(id, game, moves, 1)));
+        int[][] board = sessions.read(id, Game::getGameBoard);
+        int score = sessions.read(id, Game::getScore);
+
+        assertNull(sessions.update(id, game -> sessions.actAll(id, game, moves, 1)));
+        assertNull(sessions.update(id, game -> sessions.actAll(id, game, moves, 0)));
+        assertArrayEquals(board, sessions.read(id, Game::getGameBoard));
+        assertEquals(score, sessions.read(id, Game::getScore));
+
+        assertNotNull(sessions.update(id, game -> sessions.actAll(id, game, moves, 2)));
+    }
+
+    @Test
+    void BatchIsJournaled() throws IOException {
+        UUID id = sessions.create(5);
+        Direction[] moves = GameSessions.parseMoves("LURDLURDLURD");
+        sessions.update(id, game -> sessions.actAll(id, game, moves, 7));
+        int[][] board = sessions.read(id, Game::getGameBoard);
+        sessions.close();
+
+        SessionStore recovered = new SessionStore(dir.resolve("recovered"), 16, 8);
+        SessionJournal journal = new SessionJournal(dir.resolve("journal"), recovered);
+        assertEquals(1, journal.recover());
+        assertArrayEquals(board, recovered.get(id).getGameBoard());
+        sessions = new GameSessions(recovered, journal, new SessionRegistry(recovered, GameSessions.HISTORY_DEPTH), 1);
+    }
+}
@@ -1119,5 +1119,171 @@ public class GameTest {
         }
     }
 
+    @Nested
+    class MoveResultReportsChanges {
+        // 2 0 2 4
+        // 0 0 0 0
+        // 0 0 0 0
+        // 0 0 0 0
+
+        @BeforeEach
+        void InitGame() {
+            var rand = mock(Random.class);
+            gb = new Game(rand);
+            when(gb.createRandomNumber(anyInt()))
+                    .thenReturn(0)  // Index 0 of Array with all empty positions (row: 0 | col: 2)
+                    .thenReturn(0); // 0 for Number 4
+            int[][] board = {
+                    {2, 0, 2, 4},
+                    {0, 0, 0, 0},
+                    {0, 0, 0, 0},
+                    {0, 0, 0, 0}
+            };
+            gb.setGameBoard(board);
+        }
+
+        @Test
+        void MoveLeft() {
+            // 2 0 2 4      4 4 ? 0
+            // ? -> random position for random number
+            MoveResult result = gb.move(Direction.left);
+            assertAll(
+                    () -> assertTrue(result.isMoved()),
+                    () -> assertEquals(4, result.getScoreDelta()),
+                    () -> assertEquals(1, result.getMerges()),
+                    () -> assertEquals(0, result.getDestination(0, 0)),
+                    () -> assertEquals(-1, result.getDestination(0, 1)),
+                    () -> assertEquals(0, result.getDestination(0, 2)),
+                    () -> assertEquals(1, result.getDestination(0, 3)),
+                    () -> assertEquals(4, result.getSpawnedValue()),
+                    () -> assertEquals(0, result.getSpawnedRow()),
+                    () -> assertEquals(2, result.getSpawnedCol())
+            );
+        }
+
+        @Test
+        void MoveUpDoesNothing() {
+            MoveResult result = gb.move(Direction.up);
+            assertAll(
+                    () -> assertFalse(result.isMoved()),
+                    () -> assertEquals(0, result.getScoreDelta()),
+                    () -> assertEquals(0, result.getSpawnedValue()),
+                    () -> assertEquals(-1, result.getSpawnedRow())
+            );
+        }
+    }
+
+    @Nested
+    class UndoRedo {
+        private Game play(int size, int depth, int moves) {
+            Game game = new Game(size, RandomSource.create(7));
+            game.enableHistory(depth);
+            game.initialize();
+            Direction[] directions = Direction.values();
+            for (int i = 0; i < moves && !game.isOver(); i++) {
+                game.move(directions[i % directions.length]);
+            }
+            return game;
+        }
+
+        @Test
+        void NothingToUndoAfterInitialize() {
+            Game game = play(4, 8, 0);
+            assertAll(
+                    () -> assertFalse(game.canUndo()),
+                    () -> assertFalse(game.undo()),
+                    () -> assertFalse(game.redo())
+            );
+        }
+
+        @Test
+        void UndoRestoresBoardAndScore() {
+            for (int size : new int[] {3, 4, 6, 10}) {
+                Game game = play(size, 8, 0);
+                int[][] before = game.getGameBoard();
+                int scoreBefore = game.getScore();
+                int countBefore = game.getNumbersCount();
+                MoveResult result = game.move(Direction.left);
+                if (!result.isMoved()) {
+                    result = game.move(Direction.right);
+                }
+                int[][] after = game.getGameBoard();
+                int scoreAfter = game.getScore();
+
+                assertTrue(game.undo());
+                assertArrayEquals(before, game.getGameBoard());
+                assertEquals(scoreBefore, game.getScore());
+                assertEquals(countBefore, game.getNumbersCount());
+                assertTrue(game.canRedo());
+
+                assertTrue(game.redo());
+                assertArrayEquals(after, game.getGameBoard());
+                assertEquals(scoreAfter, game.getScore());
+                assertFalse(game.canRedo());
+            }
+        }
+
+        @Test
+        void MoveAfterUndoDropsRedo() {
+            Game game = play(4, 8, 4);
+            game.undo();
+            assertTrue(game.canRedo());
+            for (Direction direction : Direction.values()) {
+                if (game.move(direction).isMoved()) {
+                    break;
+                }
+            }
+            assertFalse(game.canRedo());
+        }
+
+        @Test
+        void HistoryKeepsOnlyTheLastMoves() {
+            Game game = play(4, 3, 40);
+            int undone = 0;
+            while (game.undo()) {
+                undone++;
+            }
+            assertEquals(3, undone);
+        }
+
+        @Test
+        void UndoLeavesLostGame() {
+            Game game = play(4, 4, 10000);
+            assertTrue(game.isOver());
+            assertTrue(game.undo());
+            assertFalse(game.isOver());
+            assertNotEquals(0, game.getLegalMoves());
+        }
+
+        @Test
+        void RedoAfterUndoSpawnsTheSameTiles() {
+            Game game = play(4, 8, 0);
+            game.move(Direction.left);
+            game.move(Direction.up);
+            int[][] after = game.getGameBoard();
+            game.undo();
+            game.undo();
+            game.move(Direction.left);
+            game.move(Direction.up);
+            assertArrayEquals(after, game.getGameBoard());
+        }
+
+        @Test
+        void RejectsHistoryWithoutRandomState() {
+            Game game = new Game(4, new Random(7));
+            game.initialize();
+            assertThrows(UnsupportedOperationException.class, () -> game.enableHistory(8));
+            assertFalse(game.canUndo());
+            assertTrue(game.move(Direction.left).isMoved() || game.move(Direction.right).isMoved());
+            assertFalse(game.undo());
+        }
+
+        @Test
+        void InvalidDepth() {
+            assertThrows(IllegalArgumentException.class, () -> new Game().enableHistory(0));
+        }
+    }
+
+
 
 }
@@ -0,0 +1,50 @@
+package spw4.game2048;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MctsPlayerTest {
+    private final MctsPlayer player = new MctsPlayer(ForkJoinPool.commonPool(), 2,
+            MctsPlayer.DEFAULT_EXPLORATION, MctsPlayer.DEFAULT_ROLLOUT_LIMIT, new SplittableRandom(42));
+
+    @Test
+    void ChoosesAPossibleMove() {
+        int[][] board = {
+                {2, 4, 2, 4},
+                {4, 2, 4, 2},
+                {2, 4, 2, 4},
+                {4, 2, 4, 0}
+        };
+        Game game = new Game();
+        game.setGameBoard(board);
+        Hint hint = player.findBestMove(game, 20);
+        assertTrue(hint.getDirection() == Direction.right || hint.getDirection() == Direction.down);
+        assertEquals(0, game.getScore());
+    }
+
+    @Test
+    void ReturnsNullWhenNoMoveIsPossible() {
+        int[][] board = {
+                {2, 4, 2, 4},
+                {4, 2, 4, 2},
+                {2, 4, 2, 4},
+                {4, 2, 4, 2}
+        };
+        Game game = new Game();
+        game.setGameBoard(board);
+        assertNull(player.findBestMove(game, 20));
+    }
+
+    @Test
+    void BoardScoreCountsMergedTiles() {
+        BitBoard board = new BitBoard();
+        board.setValueAt(0, 0, 2);
+        board.setValueAt(0, 1, 4);
+        board.setValueAt(3, 3, 8);
+        assertEquals(4 + 16, MctsPlayer.boardScore(board.getCells()));
+    }
+}
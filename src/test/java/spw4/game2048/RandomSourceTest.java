@@ -0,0 +1,69 @@
+package spw4.game2048;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RandomSourceTest {
+    @Test
+    void SameSeedSameStream() {
+        RandomSource first = RandomSource.create(42);
+        RandomSource second = RandomSource.create(42);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(first.nextInt(i + 1), second.nextInt(i + 1));
+        }
+        assertEquals(42, first.getSeed());
+    }
+
+    @Test
+    void NextIntStaysInBoundsAndCoversIt() {
+        RandomSource random = RandomSource.create(1);
+        int[] counts = new int[10];
+        for (int i = 0; i < 10000; i++) {
+            counts[random.nextInt(10)]++;
+        }
+        for (int count : counts) {
+            assertTrue(count > 800 && count < 1200, "count " + count);
+        }
+        assertThrows(IllegalArgumentException.class, () -> random.nextInt(0));
+    }
+
+    @Test
+    void JumpSkipsDraws() {
+        RandomSource stepped = RandomSource.create(7);
+        RandomSource jumped = RandomSource.create(7);
+        for (int i = 0; i < 1000; i++) {
+            stepped.nextLong();
+        }
+        jumped.jump(1000);
+        assertEquals(stepped.nextLong(), jumped.nextLong());
+    }
+
+    @Test
+    void RestoredStateRepeatsStream() {
+        RandomSource random = RandomSource.create(3);
+        long state = random.getState();
+        long first = random.nextLong();
+        random.setState(state);
+        assertEquals(first, random.nextLong());
+    }
+
+    @Test
+    void SplitIsReproducibleAndIndependent() {
+        RandomSource parent = RandomSource.create(5);
+        RandomSource child = parent.split();
+        RandomSource again = RandomSource.create(5).split();
+        assertEquals(child.getSeed(), again.getSeed());
+        assertNotEquals(parent.nextLong(), child.nextLong());
+    }
+
+    @Test
+    void GameRecordsSeed() {
+        Game game = new Game(4, RandomSource.create(11));
+        game.initialize();
+        assertEquals(11, game.getSeed());
+        assertThrows(UnsupportedOperationException.class, () -> new Game(new Random()).getSeed());
+    }
+}
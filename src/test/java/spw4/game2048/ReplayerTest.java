@@ -0,0 +1,123 @@
+package spw4.game2048;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReplayerTest {
+    private MoveLog log;
+    private List<int[][]> boards;
+    private List<Integer> scores;
+
+    private Game record(int size, long seed) {
+        log = new MoveLog(size, seed);
+        Game game = log.newGame();
+        boards = new ArrayList<>();
+        scores = new ArrayList<>();
+        boards.add(game.getGameBoard());
+        scores.add(game.getScore());
+        Strategy strategy = new RandomStrategy();
+        SplittableRandom random = new SplittableRandom(seed);
+        while (!game.isOver()) {
+            if (game.move(strategy.chooseMove(game, random)).isMoved()) {
+                boards.add(game.getGameBoard());
+                scores.add(game.getScore());
+            }
+        }
+        return game;
+    }
+
+    @Nested
+    class Recorded4x4Game {
+        @BeforeEach
+        void InitGame() {
+            record(4, 17);
+        }
+
+        @Test
+        void LogHoldsEveryMove() {
+            assertEquals(boards.size() - 1, log.length());
+        }
+
+        @Test
+        void SeekForward() {
+            Replayer replayer = new Replayer(log, 16);
+            for (int index = 0; index <= log.length(); index++) {
+                Game game = replayer.seek(index);
+                assertArrayEquals(boards.get(index), game.getGameBoard());
+                assertEquals(scores.get(index), game.getScore());
+            }
+            assertTrue(replayer.seek(log.length()).isOver());
+        }
+
+        @Test
+        void SeekBackwardsAndJump() {
+            Replayer replayer = new Replayer(log, 16);
+            SplittableRandom random = new SplittableRandom(3);
+            for (int i = 0; i < 50; i++) {
+                int index = random.nextInt(log.length() + 1);
+                assertArrayEquals(boards.get(index), replayer.seek(index).getGameBoard());
+                assertEquals(index, replayer.getPosition());
+            }
+        }
+
+        @Test
+        void WriteAndRead() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            log.writeTo(new DataOutputStream(bytes));
+            assertEquals(16 + 8 * ((log.length() + 31) / 32), bytes.size());
+
+            MoveLog read = MoveLog.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+            assertEquals(log.length(), read.length());
+            assertArrayEquals(boards.get(log.length()), new Replayer(read).seek(read.length()).getGameBoard());
+        }
+
+        @Test
+        void InvalidIndex() {
+            Replayer replayer = new Replayer(log);
+            assertThrows(IndexOutOfBoundsException.class, () -> replayer.seek(log.length() + 1));
+        }
+    }
+
+    @Test
+    void ReplayOtherSizes() {
+        for (int size : new int[] {3, 5, 9}) {
+            record(size, size);
+            Replayer replayer = new Replayer(log, 7);
+            assertArrayEquals(boards.get(log.length()), replayer.seek(log.length()).getGameBoard());
+            assertArrayEquals(boards.get(log.length() / 2), replayer.seek(log.length() / 2).getGameBoard());
+        }
+    }
+
+    @Test
+    void UndoneMovesAreNotReplayed() {
+        log = new MoveLog(4, 99);
+        Game game = log.newGame();
+        game.enableHistory(8);
+        Strategy strategy = new RandomStrategy();
+        SplittableRandom random = new SplittableRandom(5);
+        for (int i = 0; i < 200 && !game.isOver(); i++) {
+            game.move(strategy.chooseMove(game, random));
+            if (i % 3 == 0) {
+                game.undo();
+            }
+            if (i % 7 == 0) {
+                game.redo();
+            }
+        }
+        Game replayed = new Replayer(log).seek(log.length());
+        assertArrayEquals(game.getGameBoard(), replayed.getGameBoard());
+        assertEquals(game.getScore(), replayed.getScore());
+    }
+}
@@ -0,0 +1,269 @@
+package spw4.game2048;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SessionJournalTest {
+    @TempDir
+    Path dir;
+
+    private static Game newGame(int size, long seed) {
+        Game game = new MoveLog(size, seed).newGame();
+        game.enableHistory(8);
+        return game;
+    }
+
+    private static void play(SessionJournal journal, UUID id, Game game, int moves) {
+        for (int i = 0; i < moves && !game.isOver(); i++) {
+            if (i % 7 == 3 && game.undo()) {
+                journal.undo(id);
+                continue;
+            }
+            if (i % 11 == 5 && game.redo()) {
+                journal.redo(id);
+                continue;
+            }
+            Direction direction = Direction.values()[(i * 3) % 4];
+            if (game.move(direction).isMoved()) {
+                journal.move(id, direction);
+            }
+        }
+    }
+
+    private static void assertSameGame(Game expected, Game actual) {
+        assertArrayEquals(expected.getGameBoard(), actual.getGameBoard());
+        assertEquals(expected.getScore(), actual.getScore());
+        assertEquals(expected.getSeed(), actual.getSeed());
+        assertEquals(expected.isOver(), actual.isOver());
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(dir.resolve("journal"))) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".log")).count();
+        }
+    }
+
+    @Test
+    void RecoversMovesUndoAndRedo() throws IOException {
+        UUID id = UUID.randomUUID();
+        Game game = newGame(4, 42);
+        try (SessionStore store = new SessionStore(dir.resolve("a"), 16, 8);
+             SessionJournal journal = new SessionJournal(dir.resolve("journal"), store)) {
+            assertEquals(0, journal.recover());
+            store.put(id, game);
+            journal.create(id, game);
+            play(journal, id, game, 200);
+            journal.sync();
+        }
+        try (SessionStore store = new SessionStore(dir.resolve("b"), 16, 8);
+             SessionJournal journal = new SessionJournal(dir.resolve("journal"), store)) {
+            assertEquals(1, journal.recover());
+            assertSameGame(game, store.get(id));
+        }
+    }
+
+    @Test
+    void GroupCommitFromManyThreads() throws Exception {
+        int threads = 8;
+        List<UUID> ids = new ArrayList<>();
+        List<Game> games = new ArrayList<>();
+        try (SessionStore store = new SessionStore(dir.resolve("a"), 16, 8);
+             SessionJournal journal = new SessionJournal(dir.resolve("journal"), store)) {
+            journal.recover();
+            List<Thread> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                UUID id = UUID.randomUUID();
+                Game game = newGame(3 + t % 3, t);
+                ids.add(id);
+                games.add(game);
+                store.put(id, game);
+                journal.create(id, game);
+                workers.add(new Thread(() -> {
+                    for (int round = 0; round < 20; round++) {
+                        play(journal, id, game, 5);
+                        try {
+                            journal.sync();
+                        }
+                        catch (IOException e) {
+                            throw new AssertionError(e);
+                        }
+                    }
+                }));
+            }
+            workers.forEach(Thread::start);
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        }
+        try (SessionStore store = new SessionStore(dir.resolve("b"), 16, 8);
+             SessionJournal journal = new SessionJournal(dir.resolve("journal"), store)) {
+            assertEquals(threads, journal.recover());
+            for (int t = 0; t < threads; t++) {
+                assertSameGame(games.get(t), store.get(ids.get(t)));
+            }
+        }
+    }
+
+    @Test
+    void CompactsIntoSnapshotAndDropsRemovedGames() throws IOException {
+        UUID kept = UUID.randomUUID();
+        UUID removed = UUID.randomUUID();
+        Game game = newGame(4, 7);
+        try (SessionStore store = new SessionStore(dir.resolve("a"), 16, 8);
+             SessionJournal journal = new SessionJournal(dir.resolve("journal"), store, 64)) {
+            journal.recover();
+            Game other = newGame(4, 8);
+            store.put(removed, other);
+            journal.create(removed, other);
+            journal.sync();
+            store.remove(removed);
+
+            store.put(kept, game);
+            journal.create(kept, game);
+            for (int round = 0; round < 20; round++) {
+                play(journal, kept, game, 10);
+                journal.sync();
+            }
+        }
+        assertTrue(Files.exists(dir.resolve("journal").resolve("snapshot.dat")));
+        assertTrue(segmentCount() <= 2);
+        try (SessionStore store = new SessionStore(dir.resolve("b"), 16, 8);
+             SessionJournal journal = new SessionJournal(dir.resolve("journal"), store)) {
+            assertEquals(1, journal.recover());
+            assertSameGame(game, store.get(kept));
+            assertNull(store.get(removed));
+        }
+    }
+
+    @Test
+    void IgnoresTornRecordAtTheEnd() throws IOException {
+        UUID id = UUID.randomUUID();
+        Game game = newGame(5, 3);
+        Path segment;
+        try (SessionStore store = new SessionStore(dir.resolve("a"), 16, 8);
+             SessionJournal journal = new SessionJournal(dir.resolve("journal"), store)) {
+            journal.recover();
+            store.put(id, game);
+            journal.create(id, game);
+            play(journal, id, game, 40);
+            journal.sync();
+        }
+        try (Stream<Path> files = Files.list(dir.resolve("journal"))) {
+            segment = files.filter(file -> file.getFileName().toString().endsWith(".log")).findFirst().orElseThrow();
+        }
+        Files.write(segment, new byte[] {1, 2}, StandardOpenOption.APPEND);
+        try (SessionStore store = new SessionStore(dir.resolve("b"), 16, 8);
+             SessionJournal journal = new SessionJournal(dir.resolve("journal"), store)) {
+            assertEquals(1, journal.recover());
+            assertSameGame(game, store.get(id));
+        }
+    }
+
+    @Test
+    void ReusesIndicesOfDroppedGames() throws IOException {
+        UUID kept = UUID.randomUUID();
+        UUID removed = UUID.randomUUID();
+        UUID reusing = UUID.randomUUID();
+        Game game = newGame(4, 7);
+        Game other = newGame(4, 8);
+        int removedIndex;
+        try (SessionStore store = new SessionStore(dir.resolve("a"), 16, 8);
+             SessionJournal journal = new SessionJournal(dir.resolve("journal"), store, 64)) {
+            journal.recover();
+            store.put(removed, other);
+            journal.create(removed, other);
+            removedIndex = journal.indexOf(removed);
+            play(journal, removed, other, 10);
+            journal.sync();
+            store.remove(removed);
+
+            store.put(kept, game);
+            journal.create(kept, game);
+            for (int round = 0; round < 20; round++) {
+                play(journal, kept, game, 10);
+                journal.sync();
+            }
+        }
+        Game next = newGame(5, 9);
+        try (SessionStore store = new SessionStore(dir.resolve("b"), 16, 8);
+             SessionJournal journal = new SessionJournal(dir.resolve("journal"), store)) {
+            assertEquals(1, journal.recover());
+            assertEquals(-1, journal.indexOf(removed));
+            store.put(reusing, next);
+            journal.create(reusing, next);
+            assertEquals(removedIndex, journal.indexOf(reusing));
+            play(journal, reusing, next, 30);
+            journal.sync();
+        }
+        try (SessionStore store = new SessionStore(dir.resolve("c"), 16, 8);
+             SessionJournal journal = new SessionJournal(dir.resolve("journal"), store)) {
+            assertEquals(2, journal.recover());
+            assertSameGame(game, store.get(kept));
+            assertSameGame(next, store.get(reusing));
+            assertNull(store.get(removed));
+        }
+    }
+
+    @Test
+    void ReportsFailedCompaction() throws IOException {
+        Files.createDirectories(dir.resolve("journal").resolve("snapshot.tmp"));
+        UUID id = UUID.randomUUID();
+        Game game = newGame(4, 7);
+        try (SessionStore store = new SessionStore(dir.resolve("a"), 16, 8)) {
+            SessionJournal journal = new SessionJournal(dir.resolve("journal"), store, 64);
+            journal.recover();
+            store.put(id, game);
+            journal.create(id, game);
+            play(journal, id, game, 40);
+            journal.sync();
+            IOException failure = assertThrows(IOException.class, journal::close);
+            assertNotNull(failure.getCause());
+        }
+        try (SessionStore store = new SessionStore(dir.resolve("b"), 16, 8);
+             SessionJournal journal = new SessionJournal(dir.resolve("journal"), store)) {
+            assertEquals(1, journal.recover());
+            assertSameGame(game, store.get(id));
+        }
+    }
+
+    @Test
+    void FailedWriteFailsEveryLaterSync() throws IOException {
+        UUID id = UUID.randomUUID();
+        Game game = newGame(4, 5);
+        try (SessionStore store = new SessionStore(dir.resolve("a"), 16, 8)) {
+            SessionJournal journal = new SessionJournal(dir.resolve("journal"), store);
+            journal.recover();
+            store.put(id, game);
+            journal.create(id, game);
+            play(journal, id, game, 20);
+            journal.sync();
+            int[][] board = game.getGameBoard();
+            int score = game.getScore();
+
+            journal.close();
+            play(journal, id, game, 20);
+            assertThrows(IOException.class, journal::sync);
+            assertThrows(IOException.class, journal::sync);
+            journal.move(id, Direction.up);
+            assertThrows(IOException.class, journal::sync);
+
+            try (SessionStore recovered = new SessionStore(dir.resolve("b"), 16, 8);
+                 SessionJournal reopened = new SessionJournal(dir.resolve("journal"), recovered)) {
+                assertEquals(1, reopened.recover());
+                assertArrayEquals(board, recovered.get(id).getGameBoard());
+                assertEquals(score, recovered.get(id).getScore());
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package spw4.game2048;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SessionRegistryTest {
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    @TempDir
+    Path dir;
+
+    private SessionStore store;
+    private SessionRegistry registry;
+
+    @BeforeEach
+    void Open() throws IOException {
+        store = new SessionStore(dir.resolve("sessions"), 64, 4);
+        registry = new SessionRegistry(store, 4, 4, 16, 60_000);
+    }
+
+    @AfterEach
+    void Close() throws IOException {
+        store.close();
+    }
+
+    @Test
+    void ConcurrentMovesOnOneGameAreSerialized() throws Exception {
+        MoveLog log = new MoveLog(4, 1);
+        UUID id = registry.create(log.newGame());
+        AtomicInteger moved = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                tasks.add(executor.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        registry.update(id, game -> {
+                            if (game.getLegalMoves() != 0
+                                    && game.move(DIRECTIONS[Integer.numberOfTrailingZeros(game.getLegalMoves())]).isMoved()) {
+                                moved.incrementAndGet();
+                            }
+                            return null;
+                        });
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        assertEquals(moved.get(), log.length());
+        int[][] replayed = new Replayer(log).seek(log.length()).getGameBoard();
+        assertArrayEquals(replayed, registry.read(id, Game::getGameBoard));
+        assertArrayEquals(replayed, store.get(id).getGameBoard());
+    }
+
+    @Test
+    void UnknownIdAndStoreFallback() {
+        assertNull(registry.update(UUID.randomUUID(), Game::getScore));
+
+        Game game = new Game(4, RandomSource.create(3));
+        game.initialize();
+        UUID id = registry.create(game);
+        SessionRegistry restarted = new SessionRegistry(store, 4, 4, 16, 60_000);
+        assertEquals(0, restarted.size());
+        assertArrayEquals(game.getGameBoard(), restarted.read(id, Game::getGameBoard));
+        assertEquals(1, restarted.size());
+    }
+
+    @Test
+    void InvalidStripes() {
+        assertThrows(IllegalArgumentException.class, () -> new SessionRegistry(store, 4, 3, 16, 60_000));
+    }
+
+    @Test
+    void KeepsAtMostMaxEntriesInMemory() {
+        SessionRegistry cache = new SessionRegistry(store, 4, 4, 8, 60_000);
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Game game = new Game(4, RandomSource.create(i));
+            game.initialize();
+            ids.add(cache.create(game));
+        }
+        assertEquals(8, cache.size());
+        assertEquals(12, cache.getEvictions());
+
+        long misses = cache.getMisses();
+        for (UUID id : ids) {
+            assertNotNull(cache.read(id, Game::getScore));
+        }
+        assertTrue(cache.getMisses() > misses);
+        assertTrue(cache.getHits() + cache.getMisses() - misses == ids.size());
+        assertEquals(8, cache.size());
+    }
+
+    @Test
+    void IdleGamesExpire() {
+        AtomicLong now = new AtomicLong(System.currentTimeMillis());
+        SessionRegistry cache = new SessionRegistry(store, 4, 4, 8, 1000, now::get);
+        Game game = new Game(4, RandomSource.create(1));
+        game.initialize();
+        UUID idle = cache.create(game);
+        Game other = new Game(4, RandomSource.create(2));
+        other.initialize();
+        UUID active = cache.create(other);
+        now.addAndGet(2000);
+        assertNotNull(cache.read(active, Game::getScore));
+        for (int i = 0; i < 8 && cache.getExpirations() == 0; i++) {
+            cache.read(active, Game::getScore);
+        }
+        assertTrue(cache.getExpirations() >= 1);
+        assertNotNull(cache.read(active, Game::getScore));
+        assertNull(cache.read(idle, Game::getScore));
+        assertNull(store.get(idle));
+    }
+}
@@ -0,0 +1,133 @@
+package spw4.game2048;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SessionStoreTest {
+    @TempDir
+    Path dir;
+
+    private static Game play(int size, long seed, int moves) {
+        Game game = new Game(size, RandomSource.create(seed));
+        game.initialize();
+        for (int i = 0; i < moves && !game.isOver(); i++) {
+            game.move(Direction.values()[Integer.numberOfTrailingZeros(game.getLegalMoves())]);
+        }
+        return game;
+    }
+
+    @Test
+    void StoresAndRebuildsGames() throws IOException {
+        try (SessionStore store = new SessionStore(dir.resolve("sessions"), 16, 16)) {
+            for (int size : new int[] {3, 4, 7, 16}) {
+                UUID id = UUID.randomUUID();
+                Game game = play(size, size, 30);
+                store.put(id, game);
+                Game loaded = store.get(id);
+                assertArrayEquals(game.getGameBoard(), loaded.getGameBoard());
+                assertEquals(game.getScore(), loaded.getScore());
+                assertEquals(game.getSeed(), loaded.getSeed());
+                assertEquals(game.getLegalMoves(), loaded.getLegalMoves());
+
+                Direction direction = Direction.values()[Integer.numberOfTrailingZeros(game.getLegalMoves())];
+                game.move(direction);
+                loaded.move(direction);
+                assertArrayEquals(game.getGameBoard(), loaded.getGameBoard());
+            }
+            assertEquals(4, store.size());
+        }
+    }
+
+    @Test
+    void ReopenFindsGames() throws IOException {
+        Path file = dir.resolve("sessions");
+        List<UUID> ids = new ArrayList<>();
+        List<int[][]> boards = new ArrayList<>();
+        try (SessionStore store = new SessionStore(file, 100, 8)) {
+            for (int i = 0; i < 50; i++) {
+                UUID id = UUID.randomUUID();
+                Game game = play(4, i, i);
+                store.put(id, game);
+                ids.add(id);
+                boards.add(game.getGameBoard());
+            }
+            store.remove(ids.get(0));
+        }
+        try (SessionStore store = new SessionStore(file, 100, 8)) {
+            assertEquals(128, store.getCapacity());
+            assertEquals(49, store.size());
+            assertNull(store.get(ids.get(0)));
+            for (int i = 1; i < ids.size(); i++) {
+                assertArrayEquals(boards.get(i), store.get(ids.get(i)).getGameBoard());
+            }
+        }
+        assertThrows(IOException.class, () -> new SessionStore(file, 256, 8));
+    }
+
+    @Test
+    void UpdateRemoveAndFull() throws IOException {
+        try (SessionStore store = new SessionStore(dir.resolve("sessions"), 2, 4)) {
+            UUID first = UUID.randomUUID();
+            UUID second = UUID.randomUUID();
+            store.put(first, play(4, 1, 0));
+            store.put(first, play(4, 1, 5));
+            store.put(second, play(4, 2, 0));
+            assertEquals(2, store.size());
+            assertArrayEquals(play(4, 1, 5).getGameBoard(), store.get(first).getGameBoard());
+            assertThrows(IllegalStateException.class, () -> store.put(UUID.randomUUID(), play(4, 3, 0)));
+            assertThrows(IllegalArgumentException.class, () -> store.put(UUID.randomUUID(), play(5, 3, 0)));
+
+            assertTrue(store.remove(first));
+            assertFalse(store.remove(first));
+            assertEquals(-1, store.getLastAccess(first));
+            store.put(UUID.randomUUID(), play(4, 3, 0));
+            assertEquals(2, store.size());
+            assertTrue(Files.size(dir.resolve("sessions")) > 0);
+        }
+    }
+
+    @Test
+    void ChurnKeepsEveryRecordReachable() throws IOException {
+        Random random = new Random(7);
+        List<UUID> live = new ArrayList<>();
+        List<UUID> removed = new ArrayList<>();
+        try (SessionStore store = new SessionStore(dir.resolve("sessions"), 64, 4)) {
+            for (int step = 0; step < 20_000; step++) {
+                if (live.size() < 56 && (live.isEmpty() || random.nextBoolean())) {
+                    UUID id = UUID.randomUUID();
+                    store.put(id, play(4, step, 0));
+                    live.add(id);
+                }
+                else {
+                    UUID id = live.remove(random.nextInt(live.size()));
+                    assertTrue(store.remove(id));
+                    removed.add(id);
+                }
+            }
+            assertEquals(live.size(), store.size());
+            for (UUID id : live) {
+                assertTrue(store.getLastAccess(id) > 0);
+            }
+            for (UUID id : removed) {
+                assertEquals(-1, store.getLastAccess(id));
+            }
+
+            assertEquals(live.size(), store.expire(Long.MAX_VALUE, 64));
+            assertEquals(0, store.size());
+            for (int i = 0; i < 64; i++) {
+                store.put(UUID.randomUUID(), play(4, i, 0));
+            }
+            assertThrows(IllegalStateException.class, () -> store.put(UUID.randomUUID(), play(4, 0, 0)));
+        }
+    }
+}
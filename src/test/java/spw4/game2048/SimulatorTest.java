@@ -0,0 +1,36 @@
+package spw4.game2048;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimulatorTest {
+
+    @Test
+    void PlaysAllGames() throws Exception {
+        SimulationStats stats = new Simulator(4, "corner", 2).run(101, 7);
+        assertAll(
+                () -> assertEquals(101, stats.getGames()),
+                () -> assertTrue(stats.getMoves() > 101),
+                () -> assertEquals(101, Arrays.stream(stats.getMaxTileHistogram()).sum())
+        );
+    }
+
+    @Test
+    void SameSeedPlaysSameGames() throws Exception {
+        SimulationStats first = new Simulator(4, "random", 3).run(60, 42);
+        SimulationStats second = new Simulator(4, "random", 3).run(60, 42);
+        assertAll(
+                () -> assertEquals(first.getMoves(), second.getMoves()),
+                () -> assertEquals(first.getAverageScore(), second.getAverageScore()),
+                () -> assertArrayEquals(first.getScoreHistogram(), second.getScoreHistogram())
+        );
+    }
+
+    @Test
+    void RejectsUnknownStrategy() {
+        assertThrows(IllegalArgumentException.class, () -> Strategy.create("no.such.Strategy"));
+    }
+}
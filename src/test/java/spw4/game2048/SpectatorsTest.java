@@ -0,0 +1,199 @@
+package spw4.game2048;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SpectatorsTest {
+    private static final Pattern CELLS = Pattern.compile("\"(board|changed)\":\\[([0-9,]*)]");
+
+    @TempDir
+    Path dir;
+    private GameSessions sessions;
+
+    @BeforeEach
+    void open() throws IOException {
+        SessionStore store = new SessionStore(dir.resolve("sessions"), 16, 8);
+        SessionJournal journal = new SessionJournal(dir.resolve("journal"), store);
+        journal.recover();
+        sessions = new GameSessions(store, journal, new SessionRegistry(store, GameSessions.HISTORY_DEPTH), 2);
+    }
+
+    @AfterEach
+    void close() throws IOException {
+        sessions.close();
+    }
+
+    /** Collects the stream and rebuilds the board from it like a browser would. */
+    private static class Viewer implements Spectators.Sink {
+        final ByteArrayOutputStream received = new ByteArrayOutputStream();
+        final CountDownLatch blocked;
+        int[] cells;
+        int states;
+        volatile boolean closed;
+
+        Viewer(CountDownLatch blocked) {
+            this.blocked = blocked;
+        }
+
+        @Override
+        public synchronized void write(byte[] bytes) throws IOException {
+            try {
+                blocked.await(10, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            received.write(bytes);
+            String event = new String(bytes, StandardCharsets.UTF_8);
+            Matcher matcher = CELLS.matcher(event);
+            if (!matcher.find()) {
+                return;
+            }
+            String[] values = matcher.group(2).isEmpty() ? new String[0] : matcher.group(2).split(",");
+            if (matcher.group(1).equals("board")) {
+                assertTrue(event.startsWith("event: state\ndata: "));
+                states++;
+                cells = new int[values.length];
+                for (int i = 0; i < values.length; i++) {
+                    cells[i] = Integer.parseInt(values[i]);
+                }
+            }
+            else {
+                assertTrue(event.startsWith("event: delta\ndata: "));
+                for (int i = 0; i < values.length; i += 2) {
+                    cells[Integer.parseInt(values[i])] = Integer.parseInt(values[i + 1]);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        synchronized int[] cells() {
+            return cells == null ? null : cells.clone();
+        }
+    }
+
+    private int[] board(UUID id) {
+        return sessions.read(id, game -> {
+            int[] cells = new int[game.getSize() * game.getSize()];
+            for (int i = 0; i < cells.length; i++) {
+                cells[i] = game.getValueAt(i / game.getSize(), i % game.getSize());
+            }
+            return cells;
+        });
+    }
+
+    private void play(UUID id, int moves) throws IOException {
+        for (int i = 0; i < moves; i++) {
+            String action = i % 9 == 8 ? "undo" : Direction.values()[i % 4].name();
+            sessions.update(id, game -> sessions.act(id, game, action));
+        }
+    }
+
+    private void awaitBoard(Viewer viewer, UUID id) throws InterruptedException {
+        int[] expected = board(id);
+        for (int i = 0; i < 500 && !java.util.Arrays.equals(expected, viewer.cells()); i++) {
+            Thread.sleep(10);
+        }
+        assertArrayEquals(expected, viewer.cells());
+    }
+
+    @Test
+    void StreamsStateAndDeltas() throws Exception {
+        UUID id = sessions.create(4);
+        Viewer first = new Viewer(new CountDownLatch(0));
+        Viewer second = new Viewer(new CountDownLatch(0));
+        assertNotNull(sessions.getSpectators().subscribe(id, first));
+        assertNotNull(sessions.getSpectators().subscribe(id, second));
+        awaitBoard(first, id);
+        play(id, 40);
+        awaitBoard(first, id);
+        awaitBoard(second, id);
+        assertEquals(1, first.states);
+        assertEquals(1, sessions.getSpectators().getFeeds());
+    }
+
+    @Test
+    void SlowSpectatorIsResyncedWithoutBlockingThePlayer() throws Exception {
+        UUID id = sessions.create(3);
+        CountDownLatch release = new CountDownLatch(1);
+        Viewer slow = new Viewer(release);
+        assertNotNull(sessions.getSpectators().subscribe(id, slow));
+        for (int round = 0; round < 200; round++) {
+            play(id, 4);
+            if (sessions.read(id, Game::isOver)) {
+                sessions.update(id, game -> sessions.act(id, game, "undo"));
+            }
+        }
+        release.countDown();
+        awaitBoard(slow, id);
+        assertTrue(slow.states >= 2);
+    }
+
+    @Test
+    void UnwatchedGamesHaveNoFeed() throws Exception {
+        assertNull(sessions.getSpectators().subscribe(UUID.randomUUID(), new Viewer(new CountDownLatch(0))));
+        assertEquals(0, sessions.getSpectators().getSubscribers());
+        UUID id = sessions.create(4);
+        Viewer viewer = new Viewer(new CountDownLatch(0));
+        Spectators.Subscription subscription = sessions.getSpectators().subscribe(id, viewer);
+        assertEquals(1, sessions.getSpectators().getFeeds());
+        subscription.close();
+        assertTrue(viewer.closed);
+        assertEquals(0, sessions.getSpectators().getFeeds());
+        assertEquals(0, sessions.getSpectators().getSubscribers());
+        play(id, 10);
+    }
+
+    @Test
+    void StuckSpectatorIsClosedAfterTheWriteTimeout() throws Exception {
+        UUID id = sessions.create(4);
+        Spectators spectators = new Spectators(sessions, 1, Spectators.DEFAULT_CAPACITY, 10, 200);
+        try {
+            CountDownLatch closed = new CountDownLatch(1);
+            Spectators.Subscription stuck = spectators.subscribe(id, new Spectators.Sink() {
+                @Override
+                public void write(byte[] bytes) throws IOException {
+                    try {
+                        closed.await();
+                    }
+                    catch (InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                    throw new IOException("closed");
+                }
+
+                @Override
+                public void close() {
+                    closed.countDown();
+                }
+            });
+            assertNotNull(stuck);
+            Viewer viewer = new Viewer(new CountDownLatch(0));
+            assertNotNull(spectators.subscribe(id, viewer));
+            assertTrue(closed.await(5, TimeUnit.SECONDS));
+            awaitBoard(viewer, id);
+            assertEquals(1, spectators.getSubscribers());
+        }
+        finally {
+            spectators.close();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package spw4.game2048;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StaticAssetsTest {
+    private static final byte[] CSS = ".row { display: flex; }\n".repeat(200).getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void CompressesTextOnce() throws IOException {
+        StaticAssets assets = new StaticAssets();
+        StaticAssets.Asset asset = assets.add("/css/site.css", "text/css", CSS, null);
+
+        byte[] gzip = asset.getBody("gzip");
+        assertTrue(gzip.length < CSS.length / 10);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            assertArrayEquals(CSS, in.readAllBytes());
+        }
+        assertSame(CSS, asset.getBody(null));
+        assertSame(asset, assets.get("/css/site.css"));
+        assertNull(assets.get("/css/other.css"));
+    }
+
+    @Test
+    void LeavesCompressedFormatsAlone() {
+        StaticAssets assets = new StaticAssets();
+        StaticAssets.Asset font = assets.add("/icons/fonts/icons.woff2", "font/woff2", CSS, null);
+        assertNull(font.getBody("gzip"));
+        assertNull(StaticAssets.negotiate("gzip, br", font));
+    }
+
+    @Test
+    void VersionsUrlsWithTheContentHash() {
+        StaticAssets assets = new StaticAssets();
+        StaticAssets.Asset asset = assets.add("/js/game.js", "application/javascript", CSS, null);
+        assertTrue(asset.getHash().matches("[0-9a-f]{16}"));
+        assertEquals("js/game.js?v=" + asset.getHash(), assets.versioned("js/game.js"));
+        assertEquals("js/missing.js", assets.versioned("js/missing.js"));
+
+        StaticAssets.Asset changed = new StaticAssets().add("/js/game.js", "application/javascript", "x".getBytes(StandardCharsets.UTF_8), null);
+        assertNotEquals(asset.getHash(), changed.getHash());
+    }
+
+    @Test
+    void NegotiatesEncoding() {
+        byte[] brotli = {1, 2, 3};
+        StaticAssets.Asset both = new StaticAssets().add("/a.css", "text/css", CSS, brotli);
+        StaticAssets.Asset gzipOnly = new StaticAssets().add("/b.css", "text/css", CSS, null);
+
+        assertEquals("br", StaticAssets.negotiate("gzip, deflate, br", both));
+        assertEquals("gzip", StaticAssets.negotiate("gzip, br;q=0", both));
+        assertEquals("gzip", StaticAssets.negotiate("gzip, deflate, br", gzipOnly));
+        assertEquals("gzip", StaticAssets.negotiate("*", gzipOnly));
+        assertNull(StaticAssets.negotiate("gzip;q=0, identity", gzipOnly));
+        assertNull(StaticAssets.negotiate("*;q=0", gzipOnly));
+        assertNull(StaticAssets.negotiate(null, gzipOnly));
+        assertSame(brotli, both.getBody("br"));
+
+        assertEquals("\"" + both.getHash() + "\"", both.getEtag(null));
+        assertEquals("\"" + both.getHash() + "-gzip\"", both.getEtag("gzip"));
+    }
+
+    @Test
+    void ParsesSingleRanges() {
+        assertArrayEquals(new long[] {0, 99}, StaticAssets.parseRange("bytes=0-99", 1000));
+        assertArrayEquals(new long[] {500, 999}, StaticAssets.parseRange("bytes=500-", 1000));
+        assertArrayEquals(new long[] {900, 999}, StaticAssets.parseRange("bytes=-100", 1000));
+        assertArrayEquals(new long[] {0, 999}, StaticAssets.parseRange("bytes=-5000", 1000));
+        assertArrayEquals(new long[] {990, 999}, StaticAssets.parseRange("bytes=990-2000", 1000));
+        assertArrayEquals(new long[0], StaticAssets.parseRange("bytes=1000-", 1000));
+        assertArrayEquals(new long[0], StaticAssets.parseRange("bytes=-0", 1000));
+        assertNull(StaticAssets.parseRange(null, 1000));
+        assertNull(StaticAssets.parseRange("bytes=0-1,5-6", 1000));
+        assertNull(StaticAssets.parseRange("items=0-1", 1000));
+        assertNull(StaticAssets.parseRange("bytes=9-2", 1000));
+        assertNull(StaticAssets.parseRange("bytes=a-b", 1000));
+    }
+}
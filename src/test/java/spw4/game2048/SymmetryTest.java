@@ -0,0 +1,92 @@
+package spw4.game2048;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SymmetryTest {
+    private static final int[][] BOARD = {
+            {2, 4, 0, 0},
+            {0, 8, 0, 0},
+            {0, 0, 0, 16},
+            {0, 0, 0, 32}
+    };
+
+    private static long pack(int[][] board) {
+        Game game = new Game();
+        game.setGameBoard(board);
+        return BitBoard.pack(game.getBoard());
+    }
+
+    private static long randomBoard(SplittableRandom random) {
+        long cells = 0;
+        for (int cell = 0; cell < 16; cell++) {
+            if (random.nextInt(3) != 0) {
+                cells |= (long) (1 + random.nextInt(5)) << (4 * cell);
+            }
+        }
+        return cells;
+    }
+
+    @Test
+    void RotateRight() {
+        int[][] rotated = {
+                {0, 0, 0, 2},
+                {0, 0, 8, 4},
+                {0, 0, 0, 0},
+                {32, 16, 0, 0}
+        };
+        assertArrayEquals(rotated, Symmetry.rotateRight.apply(BOARD));
+    }
+
+    @Test
+    void PackedMatchesArray() {
+        long cells = pack(BOARD);
+        for (Symmetry symmetry : Symmetry.values()) {
+            assertEquals(pack(symmetry.apply(BOARD)), symmetry.apply(cells), symmetry.name());
+        }
+    }
+
+    @Test
+    void AllImagesDifferAndShareCanonicalForm() {
+        long cells = pack(BOARD);
+        Set<Long> images = new HashSet<>();
+        for (Symmetry symmetry : Symmetry.values()) {
+            long image = symmetry.apply(cells);
+            images.add(image);
+            assertEquals(Symmetry.canonical(cells), Symmetry.canonical(image));
+            assertEquals(symmetry.inverse().apply(image), cells);
+        }
+        assertEquals(8, images.size());
+        assertEquals(Symmetry.canonical(cells), Symmetry.of(cells).apply(cells));
+    }
+
+    @Test
+    void MappedMovesCommute() {
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < 200; i++) {
+            long cells = randomBoard(random);
+            for (Symmetry symmetry : Symmetry.values()) {
+                long image = symmetry.apply(cells);
+                for (Direction direction : Direction.values()) {
+                    Direction mapped = symmetry.map(direction);
+                    assertEquals(symmetry.apply(BitBoard.move(cells, direction)), BitBoard.move(image, mapped));
+                    assertEquals(direction, symmetry.unmap(mapped));
+                }
+            }
+        }
+    }
+
+    @Test
+    void SymmetricSolverAgreesOnValue() {
+        ExpectimaxSolver exact = new ExpectimaxSolver(ForkJoinPool.commonPool(), ExpectimaxSolver::evaluate, 2, 0.01);
+        ExpectimaxSolver symmetric = new ExpectimaxSolver(ForkJoinPool.commonPool(), ExpectimaxSolver::evaluate, 2, 0.01, true);
+        long cells = pack(BOARD);
+        assertEquals(exact.findBestMove(cells).getExpectedValue(), symmetric.findBestMove(cells).getExpectedValue(), 1e-9);
+    }
+}